@@ -0,0 +1,681 @@
+package edu.iastate.cs228;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe variant of StoutList that locks individual nodes instead of the
+ * whole list. Positional operations walk the node chain from head with
+ * hand-over-hand locking, holding at most the node at the position and its
+ * predecessor, plus the successors a split or merge touches. Locks are always
+ * taken in list order, so operations on different parts of the list run in
+ * parallel and cannot deadlock. Appends lock only the last node and tail.
+ *
+ * The rules for adding and removing elements are those of StoutList, so each
+ * node (except possibly the last one) is at least half full. Positions are
+ * resolved by the walk, so there is no position index and positional access is
+ * O(n / nodeSize). Unlike StoutList, duplicate elements are allowed, since a
+ * duplicate check could not be atomic without locking the whole list.
+ *
+ * Iterators copy one node at a time, never throw
+ * ConcurrentModificationException and always terminate. They follow the chain
+ * from a node only if it is unchanged since they read it; otherwise they walk
+ * from head to the position after the last element they returned. So every
+ * element is returned exactly once if nothing is inserted or removed at or
+ * before the node being read during the iteration. An insert or removal there
+ * shifts the later elements, and one of them may then be returned twice or
+ * skipped. Elements are returned as they were when their node was read.
+ */
+public class ConcurrentStoutList<E extends Comparable<? super E>> extends AbstractList<E>
+{
+
+	/**
+	 * Default number of elements that may be stored in each node.
+	 */
+	private static final int DEFAULT_NODESIZE = 4;
+
+	/**
+	 * Number of elements that can be stored in each node.
+	 */
+	private final int nodeSize;
+
+	/**
+	 * Dummy node for head.
+	 */
+	private final Node head;
+
+	/**
+	 * Dummy node for tail.
+	 */
+	private final Node tail;
+
+	/**
+	 * Number of elements in the list.
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Thread-local recycler of node arrays, or null.
+	 */
+	private final NodePool pool;
+
+	/**
+	 * Constructs an empty list with the default node size.
+	 */
+	public ConcurrentStoutList() {
+		this(DEFAULT_NODESIZE);
+	}
+
+	/**
+	 * Constructs an empty list with the given node size.
+	 *
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	public ConcurrentStoutList(int nodeSize) {
+		this(nodeSize, null);
+	}
+
+	/**
+	 * Constructs an empty list with the given node size whose node arrays are
+	 * taken from and returned to pool. Since writers run in parallel, the pool
+	 * must be thread-local: each thread reuses the arrays of the nodes it
+	 * unlinked itself.
+	 *
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 * @param pool     thread-local pool of node arrays, or null for none
+	 */
+	public ConcurrentStoutList(int nodeSize, NodePool pool) {
+		if (nodeSize <= 0 || nodeSize % 2 != 0)
+			throw new IllegalArgumentException();
+		if (pool != null && !pool.isThreadLocal())
+			throw new IllegalArgumentException("pool must be thread-local");
+		this.nodeSize = nodeSize;
+		this.pool = pool;
+		head = new Node();
+		tail = new Node();
+		head.next = tail;
+		tail.previous = head;
+	}
+
+	/**
+	 * Size of the list. Under concurrent modification this is a snapshot.
+	 *
+	 * @return size number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Adds item to end of the list, locking only the last node and tail.
+	 *
+	 * @param item item to be added into list
+	 * @return true
+	 */
+	@Override
+	public boolean add(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		while (true) {
+			Node last = tail.previous;
+			last.lock.lock();
+			tail.lock.lock();
+			try {
+				// last may have been unlinked or followed by a new node meanwhile
+				if (last.next != tail || tail.previous != last)
+					continue;
+				if (last != head && last.count < nodeSize) {
+					last.data[last.count++] = item;
+					last.version++;
+				} else {
+					Node n = new Node();
+					n.data[n.count++] = item;
+					n.previous = last;
+					n.next = tail;
+					last.next = n;
+					tail.previous = n;
+				}
+				size.incrementAndGet();
+				return true;
+			} finally {
+				tail.lock.unlock();
+				last.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the item at a specific position in the list.
+	 *
+	 * @param pos position of the item
+	 * @return E item at the given position
+	 */
+	@Override
+	public E get(int pos) {
+		Cursor c = lockPosition(pos, false);
+		try {
+			return c.node.data[c.offset];
+		} finally {
+			c.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the item at a specific position in the list.
+	 *
+	 * @param pos position of the item to be replaced
+	 * @param item replacing item
+	 * @return E item previously at the given position
+	 */
+	@Override
+	public E set(int pos, E item) {
+		if (item == null)
+			throw new NullPointerException();
+		Cursor c = lockPosition(pos, false);
+		try {
+			E old = c.node.data[c.offset];
+			c.node.data[c.offset] = item;
+			return old;
+		} finally {
+			c.unlock();
+		}
+	}
+
+	/**
+	 * Adds item to a specific position in the list.
+	 *
+	 * @param pos position for item to be added at
+	 * @param item item to be added into list
+	 */
+	@Override
+	public void add(int pos, E item) {
+		if (item == null)
+			throw new NullPointerException();
+		Cursor c = lockPosition(pos, true);
+		Node target = c.node;
+		int offset = c.offset;
+		Node successor = null;
+		try {
+			// if offset is zero and the predecessor has room, put the item there
+			if (offset == 0 && c.previous != head && c.previous.count < nodeSize) {
+				c.previous.addItem(c.previous.count, item);
+			}
+			// appending past a full (or no) last node starts a new node
+			else if (target == tail) {
+				Node n = new Node();
+				n.addItem(0, item);
+				n.previous = c.previous;
+				n.next = tail;
+				c.previous.next = n;
+				tail.previous = n;
+			} else if (target.count < nodeSize) {
+				target.addItem(offset, item);
+			// perform a split operation
+			} else {
+				successor = target.next;
+				successor.lock.lock();
+				Node n = new Node();
+				System.arraycopy(target.data, nodeSize / 2, n.data, 0, nodeSize / 2);
+				for (int i = nodeSize / 2; i < nodeSize; i++)
+					target.data[i] = null;
+				n.count = nodeSize / 2;
+				target.count = nodeSize / 2;
+				target.version++;
+				n.previous = target;
+				n.next = successor;
+				target.next = n;
+				successor.previous = n;
+
+				if (offset <= nodeSize / 2)
+					target.addItem(offset, item);
+				else
+					n.addItem(offset - nodeSize / 2, item);
+			}
+			size.incrementAndGet();
+		} finally {
+			if (successor != null)
+				successor.lock.unlock();
+			c.unlock();
+		}
+	}
+
+	/**
+	 * Removes item at a specific position in the list.
+	 *
+	 * @param pos position for item to be removed form
+	 * @return E item removed from list
+	 */
+	@Override
+	public E remove(int pos) {
+		Cursor c = lockPosition(pos, false);
+		Node temp = c.node;
+		Node succesor = temp.next;
+		Node after = null;
+		succesor.lock.lock();
+		try {
+			E nodeValue = temp.data[c.offset];
+
+			// the last node with only one element is deleted
+			if (succesor == tail && temp.count == 1) {
+				c.previous.next = tail;
+				tail.previous = c.previous;
+				temp.version++;
+				recycle(temp);
+			}
+			// the last node, or a node more than half full, just loses the element
+			else if (succesor == tail || temp.count > nodeSize / 2) {
+				temp.removeItem(c.offset);
+			} else {
+				temp.removeItem(c.offset);
+				// mini-merge: move the first element of the successor
+				if (succesor.count > nodeSize / 2) {
+					temp.addItem(temp.count, succesor.data[0]);
+					succesor.removeItem(0);
+				}
+				// full merge: move all elements of the successor and delete it
+				else {
+					after = succesor.next;
+					after.lock.lock();
+					System.arraycopy(succesor.data, 0, temp.data, temp.count, succesor.count);
+					temp.count += succesor.count;
+					temp.next = after;
+					after.previous = temp;
+					temp.version++;
+					succesor.version++;
+					recycle(succesor);
+				}
+			}
+			size.decrementAndGet();
+			return nodeValue;
+		} finally {
+			if (after != null)
+				after.lock.unlock();
+			succesor.lock.unlock();
+			c.unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements from the list, locking every node in list order.
+	 */
+	@Override
+	public void clear() {
+		head.lock.lock();
+		Node first = head.next;
+		for (Node n = first;; n = n.next) {
+			n.lock.lock();
+			if (n == tail)
+				break;
+		}
+		head.next = tail;
+		tail.previous = head;
+		size.set(0);
+		// the old nodes still link forward to tail
+		for (Node n = first; n != tail; n = n.next) {
+			n.version++;
+			recycle(n);
+			n.lock.unlock();
+		}
+		tail.lock.unlock();
+		head.lock.unlock();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Returns the position of the first occurrence of o, found in one walk over
+	 * the nodes with hand-over-hand locking.
+	 *
+	 * @param o element to look for
+	 * @return position of o, or -1 if it is not in the list
+	 */
+	@Override
+	public int indexOf(Object o) {
+		if (o == null)
+			return -1;
+		Node current = head;
+		current.lock.lock();
+		try {
+			int pos = 0;
+			while (current.next != tail) {
+				Node n = current.next;
+				n.lock.lock();
+				current.lock.unlock();
+				current = n;
+				for (int i = 0; i < current.count; i++) {
+					if (o.equals(current.data[i]))
+						return pos + i;
+				}
+				pos += current.count;
+			}
+			return -1;
+		} finally {
+			current.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the position of the last occurrence of o, found in one walk over
+	 * the nodes with hand-over-hand locking.
+	 *
+	 * @param o element to look for
+	 * @return position of o, or -1 if it is not in the list
+	 */
+	@Override
+	public int lastIndexOf(Object o) {
+		if (o == null)
+			return -1;
+		Node current = head;
+		current.lock.lock();
+		try {
+			int pos = 0;
+			int found = -1;
+			while (current.next != tail) {
+				Node n = current.next;
+				n.lock.lock();
+				current.lock.unlock();
+				current = n;
+				for (int i = 0; i < current.count; i++) {
+					if (o.equals(current.data[i]))
+						found = pos + i;
+				}
+				pos += current.count;
+			}
+			return found;
+		} finally {
+			current.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an iterator that copies the elements of one node at a time under
+	 * that node's lock, with the guarantees given in the class comment. It does
+	 * not support remove().
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new ConcurrentStoutListIterator();
+	}
+
+	/**
+	 * Returns a string representation of this list showing the internal structure
+	 * of the nodes.
+	 */
+	public String toStringInternal() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		Node current = head;
+		current.lock.lock();
+		while (current.next != tail) {
+			Node n = current.next;
+			n.lock.lock();
+			current.lock.unlock();
+			current = n;
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append('(');
+			for (int i = 0; i < nodeSize; ++i) {
+				if (i > 0)
+					sb.append(", ");
+				sb.append(current.data[i] == null ? "-" : current.data[i].toString());
+			}
+			sb.append(')');
+		}
+		current.lock.unlock();
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/**
+	 * Walks from head with hand-over-hand locking to the node holding pos and
+	 * returns it locked together with its predecessor.
+	 *
+	 * @param pos position to be found
+	 * @param allowEnd whether pos may be one past the last element, in which case
+	 *                 the returned node is tail
+	 * @return Cursor holding the locked node, its locked predecessor and the
+	 *         offset of pos
+	 */
+	private Cursor lockPosition(int pos, boolean allowEnd) {
+		if (pos < 0)
+			throw new IndexOutOfBoundsException();
+		Cursor c = walk(pos);
+		if (c.node == tail && (c.offset != 0 || !allowEnd)) {
+			c.unlock();
+			throw new IndexOutOfBoundsException();
+		}
+		return c;
+	}
+
+	/**
+	 * Walks from head with hand-over-hand locking to the node holding pos, or to
+	 * tail if pos is not below the size.
+	 *
+	 * @param pos non-negative position to be found
+	 * @return Cursor holding the locked node, its locked predecessor and the
+	 *         offset of pos, which is past the end if the node is tail
+	 */
+	private Cursor walk(int pos) {
+		Node previous = head;
+		previous.lock.lock();
+		Node current = head.next;
+		current.lock.lock();
+		int offset = pos;
+		while (current != tail && offset >= current.count) {
+			offset -= current.count;
+			Node next = current.next;
+			next.lock.lock();
+			previous.lock.unlock();
+			previous = current;
+			current = next;
+		}
+		return new Cursor(previous, current, offset);
+	}
+
+	/**
+	 * Hands the data array of n, which has just been unlinked and is locked, to
+	 * the pool if there is one. Nothing reads the array afterwards: iterators
+	 * see the changed version and every other access walks linked nodes.
+	 *
+	 * @param n unlinked node
+	 */
+	private void recycle(Node n) {
+		if (pool == null)
+			return;
+		Arrays.fill(n.data, 0, n.count, null);
+		pool.release(n.data);
+		n.data = null;
+	}
+
+	/**
+	 * Node type for this list. Every field except previous is guarded by lock.
+	 * previous is volatile so that add(E) can read tail.previous before locking.
+	 */
+	private class Node {
+		/**
+		 * Array of actual data elements.
+		 */
+		// Unchecked warning unavoidable.
+		E[] data = (E[]) (pool == null ? new Comparable[nodeSize] : pool.acquire(nodeSize));
+
+		/**
+		 * Link to next node.
+		 */
+		Node next;
+
+		/**
+		 * Link to previous node;
+		 */
+		volatile Node previous;
+
+		/**
+		 * Number of elements in this node.
+		 */
+		int count;
+
+		/**
+		 * Lock guarding this node.
+		 */
+		final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * Incremented whenever count changes or the node is unlinked, so that an
+		 * iterator can tell whether the node still leads on from what it read.
+		 */
+		int version;
+
+		/**
+		 * Adds an item to this node at the indicated offset, shifting elements to the
+		 * right as necessary. Precondition: count < nodeSize
+		 *
+		 * @param offset array index at which to put the new element
+		 * @param item   element to be added
+		 */
+		void addItem(int offset, E item) {
+			System.arraycopy(data, offset, data, offset + 1, count - offset);
+			data[offset] = item;
+			++count;
+			++version;
+		}
+
+		/**
+		 * Deletes an element from this node at the indicated offset, shifting elements
+		 * left as necessary. Precondition: 0 <= offset < count
+		 *
+		 * @param offset
+		 */
+		void removeItem(int offset) {
+			System.arraycopy(data, offset + 1, data, offset, count - offset - 1);
+			data[--count] = null;
+			++version;
+		}
+	}
+
+	/**
+	 * A locked node, its locked predecessor and an offset.
+	 */
+	private class Cursor {
+		final Node previous;
+		final Node node;
+		final int offset;
+
+		Cursor(Node previous, Node node, int offset) {
+			this.previous = previous;
+			this.node = node;
+			this.offset = offset;
+		}
+
+		void unlock() {
+			node.lock.unlock();
+			previous.lock.unlock();
+		}
+	}
+
+	/**
+	 * Iterator copying one node at a time. From a node whose version is
+	 * unchanged since it was read, the next node is found by following the
+	 * chain; a changed or unlinked node could have handed its elements to
+	 * another, so the iterator then walks from head by position instead.
+	 */
+	private class ConcurrentStoutListIterator implements Iterator<E> {
+		/**
+		 * node whose elements are in buffer, head before the first read
+		 */
+		Node current = head;
+
+		/**
+		 * version of current when it was read
+		 */
+		int version;
+
+		/**
+		 * position after the last element in buffer, when it was read
+		 */
+		int position;
+
+		/**
+		 * copy of the elements of current from where the iterator entered it
+		 */
+		final E[] buffer = (E[]) new Comparable[nodeSize];
+		int count;
+		int offset;
+
+		@Override
+		public boolean hasNext() {
+			while (offset == count) {
+				if (!advance())
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return buffer[offset++];
+		}
+
+		/**
+		 * Moves to the next node and copies its elements.
+		 *
+		 * @return false if the end of the list was reached
+		 */
+		private boolean advance() {
+			current.lock.lock();
+			if (current.version != version) {
+				current.lock.unlock();
+				return relocate();
+			}
+			Node n = current.next;
+			if (n == tail) {
+				current.lock.unlock();
+				return false;
+			}
+			n.lock.lock();
+			current.lock.unlock();
+			read(n, 0);
+			n.lock.unlock();
+			return true;
+		}
+
+		/**
+		 * Walks from head to position and copies the elements from there to the
+		 * end of their node.
+		 *
+		 * @return false if position is past the end of the list
+		 */
+		private boolean relocate() {
+			Cursor c = walk(position);
+			if (c.node == tail) {
+				c.unlock();
+				return false;
+			}
+			read(c.node, c.offset);
+			c.unlock();
+			return true;
+		}
+
+		/**
+		 * Copies the elements of n from offset from on. n must be locked.
+		 */
+		private void read(Node n, int from) {
+			count = n.count - from;
+			System.arraycopy(n.data, from, buffer, 0, count);
+			offset = 0;
+			current = n;
+			version = n.version;
+			position += count;
+		}
+	}
+}
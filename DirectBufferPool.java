@@ -0,0 +1,62 @@
+package edu.iastate.cs228;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small shared pool of little-endian direct buffers for channel I/O, so that
+ * repeated imports and exports do not each allocate native memory. Buffers of
+ * BUFFER_SIZE bytes are pooled; larger requests get a one-off buffer.
+ */
+final class DirectBufferPool
+{
+
+	/**
+	 * Capacity of pooled buffers.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Most buffers kept in the pool; further releases are dropped.
+	 */
+	private static final int MAX_POOLED = 16;
+
+	private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+	private static final AtomicInteger POOLED = new AtomicInteger();
+
+	private DirectBufferPool() {
+	}
+
+	/**
+	 * Returns a cleared buffer with at least minCapacity bytes.
+	 *
+	 * @param minCapacity number of bytes needed
+	 * @return buffer for the caller's exclusive use until release()
+	 */
+	static ByteBuffer acquire(int minCapacity) {
+		if (minCapacity > BUFFER_SIZE)
+			return ByteBuffer.allocateDirect(minCapacity).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer buffer = POOL.poll();
+		if (buffer == null)
+			return ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		POOLED.decrementAndGet();
+		return buffer.clear();
+	}
+
+	/**
+	 * Hands a buffer obtained from acquire() back to the pool.
+	 *
+	 * @param buffer buffer no longer used by the caller
+	 */
+	static void release(ByteBuffer buffer) {
+		if (buffer.capacity() != BUFFER_SIZE)
+			return;
+		if (POOLED.incrementAndGet() <= MAX_POOLED)
+			POOL.offer(buffer);
+		else
+			POOLED.decrementAndGet();
+	}
+}
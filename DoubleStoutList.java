@@ -0,0 +1,236 @@
+package edu.iastate.cs228;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * StoutList specialized for double elements. Each node stores its elements in a
+ * double[] so values are never boxed. The rules for adding and removing elements
+ * are the same as in StoutList: every node (except possibly the last one) is
+ * at least half full, and positions are located through the same treap over
+ * the nodes. Unlike StoutList, duplicate values are allowed.
+ *
+ * Positional operations do not allocate once the list has reached a steady
+ * size; nodes are only created by splits and by appending past a full tail.
+ * The node structure lives in PrimitiveStoutList; this class only reads and
+ * writes the double elements.
+ */
+public class DoubleStoutList extends PrimitiveStoutList<double[]>
+{
+
+	/**
+	 * Constructs an empty list with the default node size.
+	 */
+	public DoubleStoutList() {
+		this(DEFAULT_NODESIZE);
+	}
+
+	/**
+	 * Constructs an empty list with the given node size.
+	 *
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	public DoubleStoutList(int nodeSize) {
+		super(nodeSize);
+	}
+
+	@Override
+	double[] newArray(int length) {
+		return new double[length];
+	}
+
+	/**
+	 * Adds item to end of the DoubleStoutList.
+	 *
+	 * @param item item to be added into list
+	 * @return true
+	 */
+	public boolean add(double item) {
+		Node placed = insert(tail, 0);
+		placed.data[foundOffset] = item;
+		return true;
+	}
+
+	/**
+	 * Adds item to a specific position in DoubleStoutList.
+	 *
+	 * @param pos position for item to be added at
+	 * @param item item to be added into list
+	 */
+	public void add(int pos, double item) {
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		Node target = find(pos);
+		Node placed = insert(target, foundOffset);
+		placed.data[foundOffset] = item;
+	}
+
+	/**
+	 * Returns the item at a specific position in DoubleStoutList.
+	 *
+	 * @param pos position of the item
+	 * @return item at the given position
+	 */
+	public double get(int pos) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		Node target = find(pos);
+		return target.data[foundOffset];
+	}
+
+	/**
+	 * Replaces the item at a specific position in DoubleStoutList.
+	 *
+	 * @param pos position of the item to be replaced
+	 * @param item replacing item
+	 * @return item previously at the given position
+	 */
+	public double set(int pos, double item) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		Node target = find(pos);
+		double old = target.data[foundOffset];
+		target.data[foundOffset] = item;
+		return old;
+	}
+
+	/**
+	 * Removes item at a specific position in DoubleStoutList.
+	 *
+	 * @param pos position for item to be removed form
+	 * @return item removed from list
+	 */
+	public double remove(int pos) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		Node target = find(pos);
+		double item = target.data[foundOffset];
+		delete(target, foundOffset);
+		return item;
+	}
+
+	/**
+	 * Checks whether item is in the DoubleStoutList.
+	 *
+	 * @param item item to look for
+	 * @return true if the list contains item, false otherwise
+	 */
+	public boolean contains(double item) {
+		return indexOf(item) >= 0;
+	}
+
+	/**
+	 * Returns the position of the first occurrence of item in the DoubleStoutList.
+	 *
+	 * @param item item to look for
+	 * @return position of item, or -1 if it is not in the list
+	 */
+	public int indexOf(double item) {
+		int pos = 0;
+		for (Node temp = head.next; temp != tail; temp = temp.next) {
+			for (int i = 0; i < temp.count; i++) {
+				if (Double.compare(temp.data[i], item) == 0)
+					return pos + i;
+			}
+			pos += temp.count;
+		}
+		return -1;
+	}
+
+	/**
+	 * Sort all elements in the list in the NON-DECREASING order. After sorting,
+	 * all nodes but (possibly) the last one are full of elements.
+	 */
+	public void sort() {
+		double[] sortDataList = toArray();
+		Arrays.sort(sortDataList);
+		repack(sortDataList);
+	}
+
+	/**
+	 * Sort all elements in the list in the NON-INCREASING order. After sorting,
+	 * all nodes but (possibly) the last one are full of elements.
+	 */
+	public void sortReverse() {
+		double[] sortDataList = toArray();
+		Arrays.sort(sortDataList);
+		for (int i = 0, j = sortDataList.length - 1; i < j; i++, j--) {
+			double temp = sortDataList[i];
+			sortDataList[i] = sortDataList[j];
+			sortDataList[j] = temp;
+		}
+		repack(sortDataList);
+	}
+
+	/**
+	 * Returns an iterator over the list starting at the first element.
+	 *
+	 * @return iterator over the list
+	 */
+	public DoubleStoutListIterator iterator() {
+		return new DoubleStoutListIterator(0);
+	}
+
+	/**
+	 * Returns an iterator over the list starting at the given position.
+	 *
+	 * @param pos position of the first element returned by nextDouble()
+	 * @return iterator over the list
+	 */
+	public DoubleStoutListIterator listIterator(int pos) {
+		return new DoubleStoutListIterator(pos);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	/**
+	 * Doubly linked list iterator for DoubleStoutList, reading and writing the
+	 * elements under the shared cursor.
+	 */
+	public class DoubleStoutListIterator extends Cursor implements PrimitiveIterator.OfDouble {
+
+		DoubleStoutListIterator(int pos) {
+			super(pos);
+		}
+
+		@Override
+		public double nextDouble() {
+			forward();
+			return lastNode.data[lastOffset];
+		}
+
+		/**
+		 * Returns previous available element and shifts pointer by -1
+		 *
+		 * @return previous available element
+		 */
+		public double previousDouble() {
+			backward();
+			return lastNode.data[lastOffset];
+		}
+
+		/**
+		 * Replaces the element last returned by nextDouble() or previousDouble()
+		 *
+		 * @param item replacing element
+		 */
+		public void set(double item) {
+			checkLast();
+			lastNode.data[lastOffset] = item;
+		}
+
+		/**
+		 * Adds an element before the element nextDouble() would return
+		 *
+		 * @param item adding element
+		 */
+		public void add(double item) {
+			Node placed = insert();
+			placed.data[foundOffset] = item;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package edu.iastate.cs228;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary encoding of list elements, used by OffHeapStoutList to
+ * store elements in native memory and by StoutList.writeTo()/readFrom() to
+ * stream them. Every element occupies exactly width() bytes, so slot i of a
+ * node lives at a fixed offset.
+ */
+public interface ElementCodec<E> {
+
+	/**
+	 * Codec for Integer elements, 4 bytes each.
+	 */
+	ElementCodec<Integer> INTEGER = new ElementCodec<Integer>() {
+		@Override
+		public int width() {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int index, Integer item) {
+			buffer.putInt(index, item);
+		}
+
+		@Override
+		public Integer read(ByteBuffer buffer, int index) {
+			return buffer.getInt(index);
+		}
+	};
+
+	/**
+	 * Codec for Long elements, 8 bytes each.
+	 */
+	ElementCodec<Long> LONG = new ElementCodec<Long>() {
+		@Override
+		public int width() {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int index, Long item) {
+			buffer.putLong(index, item);
+		}
+
+		@Override
+		public Long read(ByteBuffer buffer, int index) {
+			return buffer.getLong(index);
+		}
+	};
+
+	/**
+	 * Codec for Double elements, 8 bytes each.
+	 */
+	ElementCodec<Double> DOUBLE = new ElementCodec<Double>() {
+		@Override
+		public int width() {
+			return Double.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int index, Double item) {
+			buffer.putDouble(index, item);
+		}
+
+		@Override
+		public Double read(ByteBuffer buffer, int index) {
+			return buffer.getDouble(index);
+		}
+	};
+
+	/**
+	 * @return number of bytes every encoded element occupies
+	 */
+	int width();
+
+	/**
+	 * Encodes item into buffer at the given absolute index, without changing the
+	 * buffer's position.
+	 *
+	 * @param buffer buffer to write to
+	 * @param index  byte index of the first byte to write
+	 * @param item   element to encode, never null
+	 */
+	void write(ByteBuffer buffer, int index, E item);
+
+	/**
+	 * Decodes the element at the given absolute index of buffer, without
+	 * changing the buffer's position.
+	 *
+	 * @param buffer buffer to read from
+	 * @param index  byte index of the first byte to read
+	 * @return decoded element
+	 */
+	E read(ByteBuffer buffer, int index);
+}
@@ -0,0 +1,69 @@
+package edu.iastate.cs228;
+
+/**
+ * Node of a linked list of element arrays, together with its place in the
+ * list's PositionIndex. StoutList and the primitive lists derive their node
+ * types from it and add the element array; everything here is independent of
+ * the element type.
+ *
+ * @param <N> node type of the list
+ */
+abstract class IndexedNode<N extends IndexedNode<N>>
+{
+
+	/**
+	 * Links to the neighbouring nodes in list order.
+	 */
+	N next, previous;
+
+	/**
+	 * Number of elements in this node.
+	 */
+	int count;
+
+	/**
+	 * Links to the parent and children in the position index.
+	 */
+	N parent, left, right;
+
+	/**
+	 * Heap priority in the position index.
+	 */
+	int priority;
+
+	/**
+	 * Number of elements in this node and its position index subtree.
+	 */
+	int weight;
+
+	/**
+	 * Whether this node is currently part of the position index.
+	 */
+	boolean indexed;
+
+	/**
+	 * Adds delta to the subtree weight of this node and all of its ancestors.
+	 * Must be called whenever the count of an indexed node changes.
+	 *
+	 * @param delta change in element count
+	 */
+	void reweigh(int delta) {
+		for (IndexedNode<N> n = this; n != null; n = n.parent)
+			n.weight += delta;
+	}
+
+	/**
+	 * Returns the position of the first element of this node, which must be
+	 * indexed.
+	 *
+	 * @return number of elements before this node in the list
+	 */
+	int rank() {
+		int pos = left == null ? 0 : left.weight;
+		for (IndexedNode<N> x = this; x.parent != null; x = x.parent) {
+			if (x.parent.right == x)
+				pos += x.parent.weight - x.weight;
+		}
+		return pos;
+	}
+}
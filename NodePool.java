@@ -0,0 +1,208 @@
+package edu.iastate.cs228;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of node data arrays for StoutList and ConcurrentStoutList. With
+ * a pool installed, a list hands the array of every node it unlinks (in
+ * merges, removals and clear()) back to the pool, and takes arrays for new
+ * nodes (in splits and appends) from it before allocating, so churn creates
+ * little garbage. At most capacity arrays are retained; further releases are
+ * dropped.
+ *
+ * A plain pool may be shared by lists used from one thread at a time, for
+ * example under OptimisticStoutList's write lock. The variant returned by
+ * threadLocal() keeps a separate stack per thread and can be shared freely; it
+ * is the only kind ConcurrentStoutList accepts, since its writers run in
+ * parallel. Only arrays of the pool's node size are pooled, so lists with a
+ * different or adaptive node size simply miss for the other sizes.
+ */
+public final class NodePool
+{
+
+	/**
+	 * Length of the pooled arrays.
+	 */
+	private final int nodeSize;
+
+	/**
+	 * Most arrays retained, per thread for the thread-local variant.
+	 */
+	private final int capacity;
+
+	/**
+	 * Arrays of the plain pool, null for the thread-local variant.
+	 */
+	private final Stack shared;
+
+	/**
+	 * Arrays per thread of the thread-local variant, null for the plain pool.
+	 */
+	private final ThreadLocal<Stack> local;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder drops = new LongAdder();
+
+	/**
+	 * Constructs a pool for lists used from one thread at a time.
+	 *
+	 * @param nodeSize length of the arrays to be pooled
+	 * @param capacity most arrays retained
+	 */
+	public NodePool(int nodeSize, int capacity) {
+		this(nodeSize, capacity, false);
+	}
+
+	private NodePool(int nodeSize, int capacity, boolean threadLocal) {
+		if (nodeSize <= 0 || capacity < 0)
+			throw new IllegalArgumentException();
+		this.nodeSize = nodeSize;
+		this.capacity = capacity;
+		if (threadLocal) {
+			shared = null;
+			local = ThreadLocal.withInitial(Stack::new);
+		} else {
+			shared = new Stack();
+			local = null;
+		}
+	}
+
+	/**
+	 * Returns a pool that keeps a separate stack of arrays per thread, so that
+	 * it may be shared by lists used from different threads.
+	 *
+	 * @param nodeSize length of the arrays to be pooled
+	 * @param capacity most arrays retained per thread
+	 * @return new thread-local pool
+	 */
+	public static NodePool threadLocal(int nodeSize, int capacity) {
+		return new NodePool(nodeSize, capacity, true);
+	}
+
+	/**
+	 * @return whether the pool keeps a separate stack per thread
+	 */
+	public boolean isThreadLocal() {
+		return local != null;
+	}
+
+	/**
+	 * Returns an array of nulls of the given length, from the pool if possible.
+	 *
+	 * @param length length of the array
+	 * @return array for the caller's exclusive use
+	 */
+	Comparable<?>[] acquire(int length) {
+		if (length == nodeSize) {
+			Stack stack = stack();
+			if (stack.size > 0) {
+				hits.increment();
+				Comparable<?>[] array = stack.arrays[--stack.size];
+				stack.arrays[stack.size] = null;
+				return array;
+			}
+		}
+		misses.increment();
+		return new Comparable<?>[length];
+	}
+
+	/**
+	 * Hands an array no longer referenced by any node or snapshot back to the
+	 * pool. Its slots must all be null.
+	 *
+	 * @param array array to be recycled
+	 */
+	void release(Comparable<?>[] array) {
+		Stack stack = stack();
+		if (array.length != nodeSize || stack.size == capacity) {
+			drops.increment();
+			return;
+		}
+		if (stack.size == stack.arrays.length)
+			stack.arrays = Arrays.copyOf(stack.arrays, Math.min(capacity, Math.max(16, stack.size * 2)));
+		stack.arrays[stack.size++] = array;
+	}
+
+	private Stack stack() {
+		return shared != null ? shared : local.get();
+	}
+
+	/**
+	 * @return length of the pooled arrays
+	 */
+	public int getNodeSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * @return most arrays retained, per thread for a thread-local pool
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of arrays currently retained, for the calling thread if the
+	 *         pool is thread-local
+	 */
+	public int getPooled() {
+		return stack().size;
+	}
+
+	/**
+	 * @return number of acquisitions served from the pool
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return number of acquisitions that had to allocate
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of releases dropped because the pool was full or the array
+	 *         had another length
+	 */
+	public long getDrops() {
+		return drops.sum();
+	}
+
+	/**
+	 * @return fraction of acquisitions served from the pool
+	 */
+	public double getHitRatio() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * Sets the counters back to zero; pooled arrays are kept.
+	 */
+	public void resetCounters() {
+		hits.reset();
+		misses.reset();
+		drops.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "nodeSize=" + nodeSize + ", capacity=" + capacity + ", pooled=" + getPooled() + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", drops=" + getDrops();
+	}
+
+	/**
+	 * LIFO stack of arrays, so that the most recently released and likely still
+	 * cached array is reused first.
+	 */
+	private static final class Stack {
+		Comparable<?>[][] arrays = new Comparable<?>[0][];
+		int size;
+	}
+}
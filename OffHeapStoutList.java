@@ -0,0 +1,1208 @@
+package edu.iastate.cs228;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * StoutList whose nodes live in native memory. Elements are stored through a
+ * fixed-width ElementCodec, so a list of tens of millions of elements costs the
+ * garbage collector a handful of direct buffers and int arrays instead of one
+ * Node, one array and one boxed element per slot.
+ *
+ * Nodes are fixed-size records carved out of direct ByteBuffer slabs of about
+ * SLAB_BYTES each. A record holds the element count, the next and previous
+ * links (as node numbers) and nodeSize encoded slots. Freed records are reused
+ * before a new slab is allocated; slabs are never returned. The position index
+ * is the same treap as in StoutList, kept in parallel int arrays indexed by
+ * node number.
+ *
+ * A list can also be kept in a file opened with open(). The file is a
+ * FILE_HEADER byte header recording size, nodeSize and the allocation state,
+ * followed by the slabs, each mapped with FileChannel.map. Edits write through
+ * the mappings page by page, and the header is updated after every operation.
+ * Opening a file reads only the header: the nodes are stored exactly as they
+ * were linked, half-full invariant included, so nothing is compacted on load,
+ * and pages fault in as they are touched. The position index is built on the
+ * first positional access; appending and iterating from the start do not need
+ * it.
+ *
+ * The rules for adding and removing elements are the same as in StoutList.
+ * Like the primitive variants, duplicate elements are allowed. Null elements
+ * are not.
+ */
+public class OffHeapStoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E> implements Closeable
+{
+
+	/**
+	 * Default number of elements that may be stored in each node. Larger than
+	 * StoutList's default since a node costs no heap objects.
+	 */
+	private static final int DEFAULT_NODESIZE = 64;
+
+	/**
+	 * Approximate number of bytes in each slab.
+	 */
+	private static final int SLAB_BYTES = 1 << 20;
+
+	/**
+	 * Byte offsets of the fields in a node record.
+	 */
+	private static final int COUNT = 0;
+	private static final int NEXT = 4;
+	private static final int PREVIOUS = 8;
+	private static final int HEADER = 12;
+
+	/**
+	 * Layout of the file header: magic number, format version, nodeSize, element
+	 * width, size, number of node records allocated and first free record.
+	 */
+	private static final int MAGIC = 0x53544F55;
+	private static final int VERSION = 1;
+	private static final int H_MAGIC = 0;
+	private static final int H_VERSION = 4;
+	private static final int H_NODESIZE = 8;
+	private static final int H_WIDTH = 12;
+	private static final int H_SIZE = 16;
+	private static final int H_ALLOCATED = 20;
+	private static final int H_FREE = 24;
+	private static final int FILE_HEADER = 64;
+
+	/**
+	 * Node number standing for no node in the position index and the free list.
+	 */
+	private static final int NIL = -1;
+
+	/**
+	 * Node numbers of the dummy head and tail.
+	 */
+	private static final int HEAD = 0;
+	private static final int TAIL = 1;
+
+	/**
+	 * Encoding of the elements.
+	 */
+	private final ElementCodec<E> codec;
+
+	/**
+	 * Number of bytes per element.
+	 */
+	private final int width;
+
+	/**
+	 * Number of elements that can be stored in each node.
+	 */
+	private final int nodeSize;
+
+	/**
+	 * Number of bytes in each node record.
+	 */
+	private final int nodeBytes;
+
+	/**
+	 * Each slab holds 1 << slabShift node records.
+	 */
+	private final int slabShift;
+
+	/**
+	 * Native memory holding the node records.
+	 */
+	private ByteBuffer[] slabs = new ByteBuffer[0];
+
+	/**
+	 * Number of node numbers handed out so far.
+	 */
+	private int allocated;
+
+	/**
+	 * First node record free for reuse. Free records are chained through their
+	 * next links.
+	 */
+	private int free = NIL;
+
+	/**
+	 * File the slabs are mapped from, or null if they are direct buffers.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Mapped file header, or null if the list is not backed by a file.
+	 */
+	private final MappedByteBuffer header;
+
+	/**
+	 * Whether the position index covers the list. Only false for a list opened
+	 * from a file whose index has not been needed yet.
+	 */
+	private boolean indexBuilt = true;
+
+	/**
+	 * Position index, indexed by node number: links to the parent and children,
+	 * heap priority, number of elements in the subtree and whether the node is
+	 * part of the index.
+	 */
+	private int[] parent = new int[0];
+	private int[] left = new int[0];
+	private int[] right = new int[0];
+	private int[] priority = new int[0];
+	private int[] weight = new int[0];
+	private boolean[] indexed = new boolean[0];
+
+	/**
+	 * Root of the position index over the nodes between head and tail.
+	 */
+	private int root = NIL;
+
+	/**
+	 * State of the xorshift generator used for treap priorities.
+	 */
+	private int seed = 0x2545F491;
+
+	/**
+	 * Number of elements in the list.
+	 */
+	private int size;
+
+	/**
+	 * Offset found by the last call to find() or add(int, int, E).
+	 */
+	private int foundOffset;
+
+	/**
+	 * Staging area for moving encoded elements between slots.
+	 */
+	private final byte[] scratch;
+
+	/**
+	 * Constructs an empty list with the default node size.
+	 *
+	 * @param codec encoding of the elements
+	 */
+	public OffHeapStoutList(ElementCodec<E> codec) {
+		this(codec, DEFAULT_NODESIZE);
+	}
+
+	/**
+	 * Constructs an empty list with the given node size.
+	 *
+	 * @param codec    encoding of the elements
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	public OffHeapStoutList(ElementCodec<E> codec, int nodeSize) {
+		this(codec, nodeSize, null, null);
+		allocate();
+		allocate();
+		setNext(HEAD, TAIL);
+		setPrevious(TAIL, HEAD);
+	}
+
+	/**
+	 * Sets up the layout for the given node size without allocating any node.
+	 *
+	 * @param codec    encoding of the elements
+	 * @param nodeSize number of elements that may be stored in each node
+	 * @param channel  file to map the slabs from, or null
+	 * @param header   mapped file header, or null
+	 */
+	private OffHeapStoutList(ElementCodec<E> codec, int nodeSize, FileChannel channel, MappedByteBuffer header) {
+		if (codec == null)
+			throw new NullPointerException();
+		if (nodeSize <= 0 || nodeSize % 2 != 0 || codec.width() <= 0)
+			throw new IllegalArgumentException();
+		if ((long) nodeSize * codec.width() + HEADER > SLAB_BYTES)
+			throw new IllegalArgumentException("node does not fit in a slab");
+		this.codec = codec;
+		this.width = codec.width();
+		this.nodeSize = nodeSize;
+		this.nodeBytes = HEADER + nodeSize * width;
+		this.slabShift = 31 - Integer.numberOfLeadingZeros(SLAB_BYTES / nodeBytes);
+		this.scratch = new byte[nodeBytes];
+		this.channel = channel;
+		this.header = header;
+	}
+
+	/**
+	 * Opens the list stored in file, creating the file if it does not exist. Only
+	 * the header is read; nodes are paged in from the file as they are used.
+	 * Changes are written through to the file; call force() to make them
+	 * durable and close() when done.
+	 *
+	 * @param file     file holding the list
+	 * @param codec    encoding of the elements, must match the one the file was
+	 *                 written with
+	 * @param nodeSize node size for a new file; an existing file keeps the node
+	 *                 size it was created with
+	 * @return list backed by file
+	 * @throws IOException if the file cannot be mapped or is not a list of
+	 *                     elements of codec's width
+	 */
+	public static <E extends Comparable<? super E>> OffHeapStoutList<E> open(Path file, ElementCodec<E> codec,
+			int nodeSize) throws IOException {
+		boolean exists = Files.exists(file) && Files.size(file) >= FILE_HEADER;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (!exists) {
+				OffHeapStoutList<E> list = new OffHeapStoutList<>(codec, nodeSize, channel, header);
+				header.putInt(H_MAGIC, MAGIC);
+				header.putInt(H_VERSION, VERSION);
+				header.putInt(H_NODESIZE, nodeSize);
+				header.putInt(H_WIDTH, codec.width());
+				list.allocate();
+				list.allocate();
+				list.setNext(HEAD, TAIL);
+				list.setPrevious(TAIL, HEAD);
+				list.writeHeader();
+				return list;
+			}
+			if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION)
+				throw new IOException(file + " is not a StoutList file");
+			if (header.getInt(H_WIDTH) != codec.width())
+				throw new IOException(file + " holds elements of width " + header.getInt(H_WIDTH));
+			OffHeapStoutList<E> list = new OffHeapStoutList<>(codec, header.getInt(H_NODESIZE), channel, header);
+			list.size = header.getInt(H_SIZE);
+			list.allocated = header.getInt(H_ALLOCATED);
+			list.free = header.getInt(H_FREE);
+			int slabCount = ((list.allocated - 1) >>> list.slabShift) + 1;
+			for (int i = 0; i < slabCount; i++)
+				list.addSlab();
+			list.indexBuilt = false;
+			return list;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Forces changes to a file-backed list out to the storage device. Does
+	 * nothing for a list in memory.
+	 */
+	public void force() {
+		if (channel == null)
+			return;
+		header.force();
+		for (ByteBuffer slab : slabs)
+			((MappedByteBuffer) slab).force();
+	}
+
+	/**
+	 * Forces out and closes the file backing the list. The list must not be used
+	 * afterwards. Does nothing for a list in memory; its native memory is freed
+	 * when the list becomes unreachable.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel == null)
+			return;
+		force();
+		channel.close();
+	}
+
+	/**
+	 * Size of the OffHeapStoutList.
+	 *
+	 * @return size number of elements in the list
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds item to end of the OffHeapStoutList.
+	 *
+	 * @param item item to be added into list
+	 * @return true
+	 */
+	@Override
+	public boolean add(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		add(TAIL, 0, item);
+		return true;
+	}
+
+	/**
+	 * Adds item to a specific position in OffHeapStoutList.
+	 *
+	 * @param pos  position for item to be added at
+	 * @param item item to be added into list
+	 */
+	@Override
+	public void add(int pos, E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		int target = find(pos);
+		add(target, foundOffset, item);
+	}
+
+	/**
+	 * Returns the item at a specific position in OffHeapStoutList.
+	 *
+	 * @param pos position of the item
+	 * @return item at the given position
+	 */
+	@Override
+	public E get(int pos) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		int target = find(pos);
+		return item(target, foundOffset);
+	}
+
+	/**
+	 * Replaces the item at a specific position in OffHeapStoutList.
+	 *
+	 * @param pos  position of the item to be replaced
+	 * @param item replacing item
+	 * @return item previously at the given position
+	 */
+	@Override
+	public E set(int pos, E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		int target = find(pos);
+		E old = item(target, foundOffset);
+		setItem(target, foundOffset, item);
+		return old;
+	}
+
+	/**
+	 * Removes item at a specific position in OffHeapStoutList.
+	 *
+	 * @param pos position for item to be removed form
+	 * @return item removed from list
+	 */
+	@Override
+	public E remove(int pos) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		int target = find(pos);
+		return remove(target, foundOffset);
+	}
+
+	/**
+	 * Removes all elements from the OffHeapStoutList. The node records are kept
+	 * for reuse.
+	 */
+	@Override
+	public void clear() {
+		for (int n = next(HEAD); n != TAIL;) {
+			int following = next(n);
+			indexed[n] = false;
+			release(n);
+			n = following;
+		}
+		setNext(HEAD, TAIL);
+		setPrevious(TAIL, HEAD);
+		root = NIL;
+		indexBuilt = true;
+		size = 0;
+		modCount++;
+		writeHeader();
+	}
+
+	/**
+	 * Sort all elements in the list in the NON-DECREASING order. After sorting,
+	 * all nodes but (possibly) the last one are full of elements.
+	 */
+	public void sort() {
+		sort(null);
+	}
+
+	/**
+	 * Sort all elements in the list in the NON-INCREASING order. After sorting,
+	 * all nodes but (possibly) the last one are full of elements.
+	 */
+	public void sortReverse() {
+		sort(Comparator.reverseOrder());
+	}
+
+	/**
+	 * Sorts the list by comp, or by natural order if comp is null. The elements
+	 * are decoded onto the heap for the duration of the sort and written back
+	 * into the existing node records.
+	 *
+	 * @param comp comparator to sort by, or null for natural order
+	 */
+	@Override
+	public void sort(Comparator<? super E> comp) {
+		E[] arr = elements();
+		Arrays.sort(arr, comp);
+		repack(arr);
+	}
+
+	/**
+	 * Decodes the elements of the list into an array in list order.
+	 *
+	 * @return array holding elements from the list
+	 */
+	private E[] elements() {
+		E[] dataList = (E[]) new Comparable[size];
+		int tempIndex = 0;
+		for (int n = next(HEAD); n != TAIL; n = next(n)) {
+			for (int i = 0, c = count(n); i < c; i++)
+				dataList[tempIndex++] = item(n, i);
+		}
+		return dataList;
+	}
+
+	/**
+	 * Replaces the contents of the list with arr, filling every node but
+	 * (possibly) the last one. Existing node records are reused in order and
+	 * surplus ones are freed.
+	 *
+	 * @param arr elements to be stored, in list order
+	 */
+	private void repack(E[] arr) {
+		int prev = HEAD;
+		int current = next(HEAD);
+		int i = 0;
+		while (i < arr.length) {
+			int n;
+			if (current != TAIL) {
+				n = current;
+				current = next(current);
+			} else {
+				n = allocate();
+			}
+			int k = Math.min(nodeSize, arr.length - i);
+			for (int j = 0; j < k; j++)
+				setItem(n, j, arr[i + j]);
+			setCount(n, k);
+			setPrevious(n, prev);
+			setNext(prev, n);
+			prev = n;
+			i += k;
+		}
+		while (current != TAIL) {
+			int following = next(current);
+			release(current);
+			current = following;
+		}
+		setNext(prev, TAIL);
+		setPrevious(TAIL, prev);
+		size = arr.length;
+		modCount++;
+		writeHeader();
+		buildIndex();
+	}
+
+	/**
+	 * Rebuilds the position index from the node chain.
+	 */
+	private void buildIndex() {
+		root = NIL;
+		Arrays.fill(indexed, false);
+		for (int n = next(HEAD); n != TAIL; n = next(n)) {
+			indexInsert(previous(n), n);
+		}
+		indexBuilt = true;
+	}
+
+	/**
+	 * Writes size and the allocation state to the file header, if any.
+	 */
+	private void writeHeader() {
+		if (header == null)
+			return;
+		header.putInt(H_SIZE, size);
+		header.putInt(H_ALLOCATED, allocated);
+		header.putInt(H_FREE, free);
+	}
+
+	/**
+	 * Returns an iterator over the list starting at the given position.
+	 *
+	 * @param pos position of the first element returned by next()
+	 * @return iterator over the list
+	 */
+	@Override
+	public ListIterator<E> listIterator(int pos) {
+		return new OffHeapStoutListIterator(pos);
+	}
+
+	/**
+	 * Returns a string representation of this list showing the internal structure
+	 * of the nodes.
+	 */
+	public String toStringInternal() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		int current = next(HEAD);
+		while (current != TAIL) {
+			sb.append('(');
+			int c = count(current);
+			for (int i = 0; i < nodeSize; ++i) {
+				if (i > 0)
+					sb.append(", ");
+				if (i < c)
+					sb.append(item(current, i));
+				else
+					sb.append("-");
+			}
+			sb.append(')');
+			current = next(current);
+			if (current != TAIL)
+				sb.append(", ");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/**
+	 * Adds item at the given node and offset, splitting the node if it is full.
+	 * The offset the item ended up at is left in foundOffset.
+	 *
+	 * @param target node item is to be added to, or TAIL to append
+	 * @param offset offset item is to be added at
+	 * @param item   item to be added
+	 * @return node the new item ended up in
+	 */
+	private int add(int target, int offset, E item) {
+		int placed;
+		int before = previous(target);
+		// if it is an empty list
+		if (next(HEAD) == TAIL) {
+			placed = allocate();
+			addItem(placed, 0, item);
+			link(HEAD, placed);
+			foundOffset = 0;
+		}
+		// if offset is zero and the predecessor has room, put the item there
+		else if (offset == 0 && before != HEAD && count(before) < nodeSize) {
+			placed = before;
+			foundOffset = count(before);
+			addItem(placed, foundOffset, item);
+		}
+		// appending past a full last node starts a new node
+		else if (target == TAIL) {
+			placed = allocate();
+			addItem(placed, 0, item);
+			link(before, placed);
+			foundOffset = 0;
+		} else if (count(target) < nodeSize) {
+			addItem(target, offset, item);
+			placed = target;
+			foundOffset = offset;
+		// perform a split operation
+		} else {
+			// move the last half of target into a new node
+			int half = nodeSize / 2;
+			int n = allocate();
+			move(target, half, n, 0, half);
+			setCount(n, half);
+			setCount(target, half);
+			if (indexed[target])
+				reweigh(target, -half);
+			link(target, n);
+
+			if (offset <= half) {
+				addItem(target, offset, item);
+				placed = target;
+				foundOffset = offset;
+			} else {
+				addItem(n, offset - half, item);
+				placed = n;
+				foundOffset = offset - half;
+			}
+		}
+		size++;
+		modCount++;
+		writeHeader();
+		return placed;
+	}
+
+	/**
+	 * Removes the item at the given node and offset, merging with the successor
+	 * if the node drops below half full.
+	 *
+	 * @param temp   node item is at
+	 * @param offset offset item is at
+	 * @return item removed from list
+	 */
+	private E remove(int temp, int offset) {
+		E nodeValue = item(temp, offset);
+		int succesor = next(temp);
+
+		// if the node containing the item is the last node and has only one
+		// element, delete it
+		if (succesor == TAIL && count(temp) == 1) {
+			removeItem(temp, offset);
+			unlink(temp);
+			release(temp);
+		}
+		// otherwise, if it is the last node or has more than M/2 elements,
+		// remove the item from it
+		else if (succesor == TAIL || count(temp) > nodeSize / 2) {
+			removeItem(temp, offset);
+		}
+		// otherwise merge with the successor
+		else {
+			removeItem(temp, offset);
+			int c = count(succesor);
+
+			// mini-merge: move the first element of the successor
+			if (c > nodeSize / 2) {
+				int tc = count(temp);
+				move(succesor, 0, temp, tc, 1);
+				setCount(temp, tc + 1);
+				if (indexed[temp])
+					reweigh(temp, 1);
+				removeItem(succesor, 0);
+			}
+			// full merge: move all elements of the successor and delete it
+			else {
+				int tc = count(temp);
+				move(succesor, 0, temp, tc, c);
+				setCount(temp, tc + c);
+				if (indexed[temp])
+					reweigh(temp, c);
+				unlink(succesor);
+				release(succesor);
+			}
+		}
+		size--;
+		modCount++;
+		writeHeader();
+		return nodeValue;
+	}
+
+	/**
+	 * Adds an item to node n at the indicated offset, shifting elements to the
+	 * right as necessary. Precondition: count < nodeSize
+	 *
+	 * @param n      node to add to
+	 * @param offset slot at which to put the new element
+	 * @param item   element to be added
+	 */
+	private void addItem(int n, int offset, E item) {
+		int c = count(n);
+		if (offset < c)
+			move(n, offset, n, offset + 1, c - offset);
+		setItem(n, offset, item);
+		setCount(n, c + 1);
+		if (indexed[n])
+			reweigh(n, 1);
+	}
+
+	/**
+	 * Deletes an element from node n at the indicated offset, shifting elements
+	 * left as necessary. Precondition: 0 <= offset < count
+	 *
+	 * @param n      node to remove from
+	 * @param offset slot of the element to be removed
+	 */
+	private void removeItem(int n, int offset) {
+		int c = count(n);
+		if (offset < c - 1)
+			move(n, offset + 1, n, offset, c - offset - 1);
+		setCount(n, c - 1);
+		if (indexed[n])
+			reweigh(n, -1);
+	}
+
+	/**
+	 * Copies k encoded elements from slot srcOffset of node src to slot
+	 * dstOffset of node dst. The ranges may overlap.
+	 */
+	private void move(int src, int srcOffset, int dst, int dstOffset, int k) {
+		int bytes = k * width;
+		slab(src).get(slot(src, srcOffset), scratch, 0, bytes);
+		slab(dst).put(slot(dst, dstOffset), scratch, 0, bytes);
+	}
+
+	/**
+	 * @return slab holding the record of node n
+	 */
+	private ByteBuffer slab(int n) {
+		return slabs[n >>> slabShift];
+	}
+
+	/**
+	 * @return byte index of the record of node n within its slab
+	 */
+	private int base(int n) {
+		return (n & ((1 << slabShift) - 1)) * nodeBytes;
+	}
+
+	/**
+	 * @return byte index of slot i of node n within its slab
+	 */
+	private int slot(int n, int i) {
+		return base(n) + HEADER + i * width;
+	}
+
+	private E item(int n, int i) {
+		return codec.read(slab(n), slot(n, i));
+	}
+
+	private void setItem(int n, int i, E item) {
+		codec.write(slab(n), slot(n, i), item);
+	}
+
+	private int count(int n) {
+		return slab(n).getInt(base(n) + COUNT);
+	}
+
+	private void setCount(int n, int count) {
+		slab(n).putInt(base(n) + COUNT, count);
+	}
+
+	private int next(int n) {
+		return slab(n).getInt(base(n) + NEXT);
+	}
+
+	private void setNext(int n, int next) {
+		slab(n).putInt(base(n) + NEXT, next);
+	}
+
+	private int previous(int n) {
+		return slab(n).getInt(base(n) + PREVIOUS);
+	}
+
+	private void setPrevious(int n, int previous) {
+		slab(n).putInt(base(n) + PREVIOUS, previous);
+	}
+
+	/**
+	 * Hands out an empty node record, reusing a freed one if there is any and
+	 * otherwise adding a new slab when the last one is used up.
+	 *
+	 * @return node number of the record
+	 */
+	private int allocate() {
+		int n;
+		if (free != NIL) {
+			n = free;
+			free = next(n);
+		} else {
+			n = allocated++;
+			if (n >>> slabShift == slabs.length)
+				addSlab();
+		}
+		setCount(n, 0);
+		return n;
+	}
+
+	/**
+	 * Adds a slab of node records, mapped from the file if the list has one, and
+	 * grows the position index arrays to match.
+	 */
+	private void addSlab() {
+		int slabBytes = nodeBytes << slabShift;
+		ByteBuffer slab;
+		if (channel == null) {
+			slab = ByteBuffer.allocateDirect(slabBytes).order(ByteOrder.nativeOrder());
+		} else {
+			try {
+				slab = channel.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER + (long) slabs.length * slabBytes,
+						slabBytes).order(ByteOrder.LITTLE_ENDIAN);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		slabs = Arrays.copyOf(slabs, slabs.length + 1);
+		slabs[slabs.length - 1] = slab;
+		int capacity = slabs.length << slabShift;
+		parent = Arrays.copyOf(parent, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		priority = Arrays.copyOf(priority, capacity);
+		weight = Arrays.copyOf(weight, capacity);
+		indexed = Arrays.copyOf(indexed, capacity);
+	}
+
+	/**
+	 * Returns the record of node n, which is no longer linked or indexed, for
+	 * reuse.
+	 *
+	 * @param n node number of the record
+	 */
+	private void release(int n) {
+		setNext(n, free);
+		free = n;
+	}
+
+	/**
+	 * Finds the node the position is located at and leaves the offset within it in
+	 * foundOffset. A position equal to size maps to offset 0 of the tail dummy
+	 * node.
+	 *
+	 * @param pos position item is at
+	 * @return node pos is in
+	 */
+	private int find(int pos) {
+		if (pos == size) {
+			foundOffset = 0;
+			return TAIL;
+		}
+		if (pos == 0) {
+			foundOffset = 0;
+			return next(HEAD);
+		}
+		if (!indexBuilt)
+			buildIndex();
+		int current = root;
+		while (true) {
+			int l = left[current];
+			int leftWeight = l == NIL ? 0 : weight[l];
+			if (pos < leftWeight) {
+				current = l;
+			} else if (pos - leftWeight < count(current)) {
+				foundOffset = pos - leftWeight;
+				return current;
+			} else {
+				pos -= leftWeight + count(current);
+				current = right[current];
+			}
+		}
+	}
+
+	/**
+	 * Links node n into the list directly after prev, which may be HEAD.
+	 *
+	 * @param prev node to link after
+	 * @param n    node to be linked
+	 */
+	private void link(int prev, int n) {
+		int following = next(prev);
+		setNext(n, following);
+		setPrevious(n, prev);
+		setPrevious(following, n);
+		setNext(prev, n);
+		if (indexBuilt)
+			indexInsert(prev, n);
+	}
+
+	/**
+	 * Unlinks node n from the list.
+	 *
+	 * @param n node to be unlinked
+	 */
+	private void unlink(int n) {
+		int prev = previous(n);
+		int following = next(n);
+		setNext(prev, following);
+		setPrevious(following, prev);
+		if (indexed[n])
+			indexRemove(n);
+	}
+
+	/**
+	 * Inserts n into the position index directly after prev, which is either HEAD
+	 * or already indexed.
+	 *
+	 * @param prev predecessor of n in list order
+	 * @param n    node to be indexed
+	 */
+	private void indexInsert(int prev, int n) {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		priority[n] = seed >>> 1;
+		left[n] = NIL;
+		right[n] = NIL;
+		weight[n] = count(n);
+		indexed[n] = true;
+		if (root == NIL) {
+			parent[n] = NIL;
+			root = n;
+			return;
+		}
+		int p;
+		if (prev == HEAD) {
+			p = root;
+			while (left[p] != NIL)
+				p = left[p];
+			left[p] = n;
+		} else if (right[prev] == NIL) {
+			p = prev;
+			right[p] = n;
+		} else {
+			p = right[prev];
+			while (left[p] != NIL)
+				p = left[p];
+			left[p] = n;
+		}
+		parent[n] = p;
+		reweigh(p, weight[n]);
+		while (parent[n] != NIL && priority[n] < priority[parent[n]])
+			rotateUp(n);
+	}
+
+	/**
+	 * Removes n from the position index.
+	 *
+	 * @param n node to be removed
+	 */
+	private void indexRemove(int n) {
+		// rotate n down to a leaf, then detach it
+		while (left[n] != NIL || right[n] != NIL) {
+			if (left[n] == NIL)
+				rotateUp(right[n]);
+			else if (right[n] == NIL || priority[left[n]] < priority[right[n]])
+				rotateUp(left[n]);
+			else
+				rotateUp(right[n]);
+		}
+		int p = parent[n];
+		if (p == NIL) {
+			root = NIL;
+		} else {
+			if (left[p] == n)
+				left[p] = NIL;
+			else
+				right[p] = NIL;
+			reweigh(p, -weight[n]);
+		}
+		parent[n] = NIL;
+		indexed[n] = false;
+	}
+
+	/**
+	 * Adds delta to the subtree weight of n and all of its ancestors.
+	 *
+	 * @param n     indexed node whose count changed
+	 * @param delta change in element count
+	 */
+	private void reweigh(int n, int delta) {
+		for (; n != NIL; n = parent[n])
+			weight[n] += delta;
+	}
+
+	/**
+	 * Rotates x above its parent in the position index.
+	 *
+	 * @param x node to be rotated up
+	 */
+	private void rotateUp(int x) {
+		int p = parent[x];
+		int g = parent[p];
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] != NIL)
+				parent[right[x]] = p;
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] != NIL)
+				parent[left[x]] = p;
+			left[x] = p;
+		}
+		parent[p] = x;
+		parent[x] = g;
+		if (g == NIL)
+			root = x;
+		else if (left[g] == p)
+			left[g] = x;
+		else
+			right[g] = x;
+		weight[x] = weight[p];
+		weight[p] = count(p) + (left[p] == NIL ? 0 : weight[left[p]]) + (right[p] == NIL ? 0 : weight[right[p]]);
+	}
+
+	/**
+	 * Doubly linked list iterator for OffHeapStoutList. Like StoutList's iterator
+	 * it keeps a (node, offset) cursor, edits the nodes in place and is
+	 * fail-fast.
+	 */
+	private class OffHeapStoutListIterator implements ListIterator<E> {
+		final int LAST_ACTION_PREV = 0;
+		final int LAST_ACTION_NEXT = 1;
+
+		/**
+		 * pointer of iterator
+		 */
+		int currentPosition;
+
+		/**
+		 * node and offset of the element at currentPosition
+		 */
+		int cursorNode;
+		int cursorOffset;
+
+		/**
+		 * node and offset of the element last returned by next() or previous()
+		 */
+		int lastNode;
+		int lastOffset;
+
+		/**
+		 * tracks the last action taken, for remove() and set()
+		 */
+		int lastAction;
+
+		/**
+		 * modCount of the list this iterator expects
+		 */
+		int expectedModCount;
+
+		/**
+		 * Sets the pointer of iterator to the specific index of the list
+		 *
+		 * @param pos
+		 */
+		OffHeapStoutListIterator(int pos) {
+			if (pos < 0 || pos > size)
+				throw new IndexOutOfBoundsException();
+			cursorNode = find(pos);
+			cursorOffset = foundOffset;
+			currentPosition = pos;
+			lastAction = -1;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Moves the cursor to the start of the next node if it has run past the
+		 * last element of its node.
+		 */
+		private void normalize() {
+			if (cursorNode != TAIL && cursorOffset >= count(cursorNode)) {
+				cursorNode = OffHeapStoutList.this.next(cursorNode);
+				cursorOffset = 0;
+			}
+		}
+
+		/**
+		 * Throws ConcurrentModificationException if the list was structurally
+		 * modified other than through this iterator.
+		 */
+		private void checkForComodification() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return currentPosition < size;
+		}
+
+		@Override
+		public E next() {
+			checkForComodification();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastAction = LAST_ACTION_NEXT;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+			cursorOffset++;
+			currentPosition++;
+			normalize();
+			return item(lastNode, lastOffset);
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return currentPosition > 0;
+		}
+
+		@Override
+		public E previous() {
+			checkForComodification();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+			if (cursorOffset == 0) {
+				cursorNode = OffHeapStoutList.this.previous(cursorNode);
+				cursorOffset = count(cursorNode);
+			}
+			cursorOffset--;
+			currentPosition--;
+			lastAction = LAST_ACTION_PREV;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+			return item(lastNode, lastOffset);
+		}
+
+		@Override
+		public int nextIndex() {
+			return currentPosition;
+		}
+
+		@Override
+		public int previousIndex() {
+			return currentPosition - 1;
+		}
+
+		/**
+		 * Removes from the list the last element returned by next() or previous().
+		 */
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastAction == LAST_ACTION_NEXT) {
+				currentPosition--;
+			} else if (lastAction != LAST_ACTION_PREV) {
+				throw new IllegalStateException();
+			}
+			int following = OffHeapStoutList.this.next(lastNode);
+			// only a last node holding one element is unlinked by the removal
+			boolean unlinked = following == TAIL && count(lastNode) == 1;
+			OffHeapStoutList.this.remove(lastNode, lastOffset);
+			if (!unlinked) {
+				cursorNode = lastNode;
+				cursorOffset = lastOffset;
+				normalize();
+			} else {
+				cursorNode = following;
+				cursorOffset = 0;
+			}
+			expectedModCount = modCount;
+			lastAction = -1;
+		}
+
+		/**
+		 * Replaces the element last returned by next() or previous()
+		 *
+		 * @param item replacing element
+		 */
+		@Override
+		public void set(E item) {
+			checkForComodification();
+			if (item == null)
+				throw new NullPointerException();
+			if (lastAction != LAST_ACTION_NEXT && lastAction != LAST_ACTION_PREV)
+				throw new IllegalStateException();
+			setItem(lastNode, lastOffset, item);
+		}
+
+		/**
+		 * Adds an element before the element next() would return
+		 *
+		 * @param item adding element
+		 */
+		@Override
+		public void add(E item) {
+			checkForComodification();
+			if (item == null)
+				throw new NullPointerException();
+			cursorNode = OffHeapStoutList.this.add(cursorNode, cursorOffset, item);
+			cursorOffset = foundOffset + 1;
+			normalize();
+			currentPosition++;
+			expectedModCount = modCount;
+			lastAction = -1;
+		}
+	}
+}
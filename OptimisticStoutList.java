@@ -0,0 +1,486 @@
+package edu.iastate.cs228;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe wrapper around a StoutList for read-mostly use. Readers run
+ * under StampedLock optimistic stamps and do not block writers or each other;
+ * a read is retried under the read lock only if a write happened while it was
+ * running. Writers take the exclusive write lock.
+ *
+ * Any write invalidates running optimistic reads, not just splits and merges,
+ * since an insert or remove within a node also shifts the elements a reader
+ * may be copying. Optimistic reads walk the position index a bounded number of
+ * steps, so a reader racing a rotation gives up and retries instead of
+ * looping.
+ *
+ * Lists with adaptive node sizing are not accepted. Their reads count
+ * themselves toward the node size decision, which is not safe under a shared
+ * read lock, and optimistic reads are not counted at all, so the decision
+ * would follow a wrong workload.
+ *
+ * iterator() copies up to a node's worth of elements per read and never
+ * throws ConcurrentModificationException. Each read resumes at the position
+ * where the previous one stopped, so an element inserted or removed before
+ * that position between two reads makes the iterator return an element twice
+ * or skip one; otherwise every element is returned exactly once.
+ * listIterator(), and so subList(), is fail-fast instead: it runs on the
+ * wrapped list's own iterator, one lock per call, and throws
+ * ConcurrentModificationException once another thread has changed the list's
+ * structure.
+ */
+public class OptimisticStoutList<E extends Comparable<? super E>> extends AbstractList<E>
+{
+
+	/**
+	 * Steps down the position index an optimistic read may take before giving
+	 * up; far more than the depth of any treap that fits in memory.
+	 */
+	private static final int MAX_OPTIMISTIC_STEPS = 512;
+
+	/**
+	 * Number of elements an iterator copies per read.
+	 */
+	private static final int CHUNK_SIZE = 64;
+
+	/**
+	 * Wrapped list. It must not be accessed other than through this wrapper.
+	 */
+	private final StoutList<E> list;
+
+	/**
+	 * Lock guarding list.
+	 */
+	private final StampedLock lock = new StampedLock();
+
+	/**
+	 * Wraps list. The wrapper takes over the list; it must not be used directly
+	 * afterwards, so its node sizing cannot be made adaptive later either.
+	 *
+	 * @param list list to be wrapped
+	 * @throws IllegalArgumentException if list has adaptive node sizing on
+	 */
+	public OptimisticStoutList(StoutList<E> list) {
+		if (list == null)
+			throw new NullPointerException();
+		if (list.isAdaptiveNodeSize())
+			throw new IllegalArgumentException("adaptive node sizing is not supported");
+		this.list = list;
+	}
+
+	@Override
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int size = list.size();
+		if (lock.validate(stamp))
+			return size;
+		stamp = lock.readLock();
+		try {
+			return list.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns the item at a specific position, optimistically if no write is in
+	 * progress.
+	 *
+	 * @param pos position of the item
+	 * @return E item at the given position
+	 */
+	@Override
+	public E get(int pos) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				E item = list.readItem(pos, MAX_OPTIMISTIC_STEPS);
+				if (item != null && lock.validate(stamp))
+					return item;
+			} catch (RuntimeException e) {
+				// only trust the exception if no write raced with the read
+				if (lock.validate(stamp))
+					throw e;
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return list.get(pos);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		long stamp = lock.readLock();
+		try {
+			return list.indexOf(o);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		long stamp = lock.readLock();
+		try {
+			return list.lastIndexOf(o);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public E set(int pos, E item) {
+		long stamp = lock.writeLock();
+		try {
+			return list.set(pos, item);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean add(E item) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.add(item));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void add(int pos, E item) {
+		long stamp = lock.writeLock();
+		try {
+			list.add(pos, item);
+			modCount++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public E remove(int pos) {
+		long stamp = lock.writeLock();
+		try {
+			E item = list.remove(pos);
+			modCount++;
+			return item;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			list.clear();
+			modCount++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.removeIf(filter));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.removeAll(c));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.retainAll(c));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Applies batch to the wrapped list under the write lock.
+	 *
+	 * @param batch changes to be applied
+	 */
+	public void apply(StoutList.MutationBatch<? extends E> batch) {
+		long stamp = lock.writeLock();
+		try {
+			list.apply(batch);
+			modCount++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void sort(Comparator<? super E> comp) {
+		long stamp = lock.writeLock();
+		try {
+			list.sort(comp);
+			modCount++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.addAll(c));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean addAll(int pos, Collection<? extends E> c) {
+		long stamp = lock.writeLock();
+		try {
+			return changed(list.addAll(pos, c));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes the range under one write lock, so that subList(from, to).clear()
+	 * is atomic.
+	 */
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		long stamp = lock.writeLock();
+		try {
+			list.removeRange(fromIndex, toIndex);
+			if (fromIndex < toIndex)
+				modCount++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Counts a structural change for the fail-fast list iterators if the write
+	 * under way changed the list. The write lock must be held.
+	 *
+	 * @param changed result of the write
+	 * @return changed
+	 */
+	private boolean changed(boolean changed) {
+		if (changed)
+			modCount++;
+		return changed;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator that reads the list a node at a time,
+	 * optimistically when possible. It does not support remove().
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new OptimisticIterator();
+	}
+
+	/**
+	 * Returns a fail-fast list iterator over the wrapped list. Each call takes
+	 * the read or write lock for its own duration only.
+	 */
+	@Override
+	public ListIterator<E> listIterator(int index) {
+		long stamp = lock.readLock();
+		try {
+			return new LockedListIterator(list.listIterator(index));
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Iterator copying a node's worth of elements per refill into a buffer. See
+	 * the class comment for what it returns under concurrent writes. hasNext()
+	 * refills an empty buffer itself, so an element it has promised cannot be
+	 * taken away by a writer before next() returns it.
+	 */
+	private class OptimisticIterator implements Iterator<E> {
+		/**
+		 * position of the element after the buffered ones
+		 */
+		int position;
+
+		/**
+		 * copy of the elements at positions [position - count, position)
+		 */
+		final E[] buffer = (E[]) new Comparable[CHUNK_SIZE];
+		int count;
+		int offset;
+
+		@Override
+		public boolean hasNext() {
+			return offset < count || refill();
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return buffer[offset++];
+		}
+
+		/**
+		 * Copies the elements from position to the end of their node.
+		 *
+		 * @return false if position is past the end of the list
+		 */
+		private boolean refill() {
+			long stamp = lock.tryOptimisticRead();
+			int k = -1;
+			if (stamp != 0) {
+				try {
+					k = list.readChunk(position, buffer, MAX_OPTIMISTIC_STEPS);
+				} catch (RuntimeException e) {
+					k = -1;
+				}
+				if (!lock.validate(stamp))
+					k = -1;
+			}
+			if (k <= 0) {
+				stamp = lock.readLock();
+				try {
+					if (position >= list.size())
+						return false;
+					k = list.readChunk(position, buffer, Integer.MAX_VALUE);
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+			count = k;
+			offset = 0;
+			position += k;
+			return true;
+		}
+	}
+
+	/**
+	 * Wrapped list's own iterator with every call made under the lock. The
+	 * wrapped iterator detects writes made other than through itself.
+	 */
+	private class LockedListIterator implements ListIterator<E> {
+		final ListIterator<E> iter;
+
+		LockedListIterator(ListIterator<E> iter) {
+			this.iter = iter;
+		}
+
+		@Override
+		public boolean hasNext() {
+			long stamp = lock.readLock();
+			try {
+				return iter.hasNext();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@Override
+		public E next() {
+			long stamp = lock.readLock();
+			try {
+				return iter.next();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			long stamp = lock.readLock();
+			try {
+				return iter.hasPrevious();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@Override
+		public E previous() {
+			long stamp = lock.readLock();
+			try {
+				return iter.previous();
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@Override
+		public int nextIndex() {
+			return iter.nextIndex();
+		}
+
+		@Override
+		public int previousIndex() {
+			return iter.previousIndex();
+		}
+
+		@Override
+		public void remove() {
+			long stamp = lock.writeLock();
+			try {
+				iter.remove();
+				modCount++;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		@Override
+		public void set(E item) {
+			long stamp = lock.writeLock();
+			try {
+				iter.set(item);
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		@Override
+		public void add(E item) {
+			long stamp = lock.writeLock();
+			try {
+				iter.add(item);
+				modCount++;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package edu.iastate.cs228;
+
+/**
+ * Position index over the nodes of a list: a treap ordered like the list and
+ * heap-ordered by random priorities, in which every node carries the number
+ * of elements in its subtree. A position is found in expected O(log(n / M))
+ * steps by descending from the root and comparing against left subtree
+ * weights.
+ *
+ * The list links and unlinks its nodes itself and keeps the index in step
+ * through insert() and remove(); count changes are propagated with
+ * IndexedNode.reweigh(). Lists that need a special descent, such as bounded
+ * reads that may race a writer, walk down from root themselves.
+ *
+ * @param <N> node type of the list
+ */
+final class PositionIndex<N extends IndexedNode<N>>
+{
+
+	/**
+	 * Root of the index, null if the list has no nodes.
+	 */
+	N root;
+
+	/**
+	 * Offset within its node of the position found by the last call to find().
+	 */
+	int offset;
+
+	/**
+	 * Number of nodes visited by the last call to find().
+	 */
+	int steps;
+
+	/**
+	 * Dummy head node of the list, never indexed.
+	 */
+	private final N head;
+
+	/**
+	 * State of the xorshift generator used for treap priorities.
+	 */
+	private int seed = 0x2545F491;
+
+	/**
+	 * Constructs an empty index for the list starting at head.
+	 *
+	 * @param head dummy head node of the list
+	 */
+	PositionIndex(N head) {
+		this.head = head;
+	}
+
+	/**
+	 * Finds the node the position is located at and leaves the offset within it
+	 * in offset.
+	 *
+	 * @param pos position, less than the number of elements in the list
+	 * @return node pos is in
+	 */
+	N find(int pos) {
+		N current = root;
+		for (int s = 1;; s++) {
+			int leftWeight = current.left == null ? 0 : current.left.weight;
+			if (pos < leftWeight) {
+				current = current.left;
+			} else if (pos - leftWeight < current.count) {
+				offset = pos - leftWeight;
+				steps = s;
+				return current;
+			} else {
+				pos -= leftWeight + current.count;
+				current = current.right;
+			}
+		}
+	}
+
+	/**
+	 * Inserts n into the index directly after prev, which is either head or
+	 * already indexed.
+	 *
+	 * @param prev predecessor of n in list order
+	 * @param n node to be indexed
+	 */
+	void insert(N prev, N n) {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		n.priority = seed >>> 1;
+		n.left = null;
+		n.right = null;
+		n.weight = n.count;
+		n.indexed = true;
+		if (root == null) {
+			n.parent = null;
+			root = n;
+			return;
+		}
+		N p;
+		if (prev == head) {
+			p = root;
+			while (p.left != null)
+				p = p.left;
+			p.left = n;
+		} else if (prev.right == null) {
+			p = prev;
+			p.right = n;
+		} else {
+			p = prev.right;
+			while (p.left != null)
+				p = p.left;
+			p.left = n;
+		}
+		n.parent = p;
+		p.reweigh(n.count);
+		while (n.parent != null && n.priority < n.parent.priority)
+			rotateUp(n);
+	}
+
+	/**
+	 * Removes n from the index.
+	 *
+	 * @param n node to be removed
+	 */
+	void remove(N n) {
+		// rotate n down to a leaf, then detach it
+		while (n.left != null || n.right != null) {
+			if (n.left == null)
+				rotateUp(n.right);
+			else if (n.right == null || n.left.priority < n.right.priority)
+				rotateUp(n.left);
+			else
+				rotateUp(n.right);
+		}
+		N p = n.parent;
+		if (p == null) {
+			root = null;
+		} else {
+			if (p.left == n)
+				p.left = null;
+			else
+				p.right = null;
+			p.reweigh(-n.weight);
+		}
+		n.parent = null;
+		n.indexed = false;
+	}
+
+	/**
+	 * Rebuilds the index from the node chain between head and tail.
+	 *
+	 * @param tail dummy tail node of the list
+	 */
+	void rebuild(N tail) {
+		root = null;
+		for (N n = head.next; n != tail; n = n.next) {
+			insert(n.previous, n);
+		}
+	}
+
+	/**
+	 * Rotates x above its parent.
+	 *
+	 * @param x node to be rotated up
+	 */
+	private void rotateUp(N x) {
+		N p = x.parent;
+		N g = p.parent;
+		if (p.left == x) {
+			p.left = x.right;
+			if (x.right != null)
+				x.right.parent = p;
+			x.right = p;
+		} else {
+			p.right = x.left;
+			if (x.left != null)
+				x.left.parent = p;
+			x.left = p;
+		}
+		p.parent = x;
+		x.parent = g;
+		if (g == null)
+			root = x;
+		else if (g.left == p)
+			g.left = x;
+		else
+			g.right = x;
+		x.weight = p.weight;
+		p.weight = p.count + (p.left == null ? 0 : p.left.weight) + (p.right == null ? 0 : p.right.weight);
+	}
+}
@@ -0,0 +1,552 @@
+package edu.iastate.cs228;
+
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Node structure shared by IntStoutList, LongStoutList and DoubleStoutList:
+ * the node chain, the position index, splits and merges, and the iterator
+ * cursor. None of it depends on the element type, since elements are only
+ * moved with System.arraycopy(), which accepts any array. The subclasses read
+ * and write the elements of a node's array of type A and add the typed public
+ * operations.
+ *
+ * The rules for adding and removing elements are those of StoutList: every
+ * node (except possibly the last one) is at least half full.
+ *
+ * @param <A> array type holding the elements of a node, such as int[]
+ */
+abstract class PrimitiveStoutList<A>
+{
+
+	/**
+	 * Default number of elements that may be stored in each node.
+	 */
+	static final int DEFAULT_NODESIZE = 4;
+
+	/**
+	 * Number of elements that can be stored in each node.
+	 */
+	final int nodeSize;
+
+	/**
+	 * Dummy node for head.
+	 */
+	final Node head;
+
+	/**
+	 * Dummy node for tail.
+	 */
+	final Node tail;
+
+	/**
+	 * Number of elements in the list.
+	 */
+	int size;
+
+	/**
+	 * Number of structural modifications, for fail-fast iterators.
+	 */
+	int modCount;
+
+	/**
+	 * Position index over the nodes between head and tail.
+	 */
+	final PositionIndex<Node> index;
+
+	/**
+	 * Offset found by the last call to find() or insert().
+	 */
+	int foundOffset;
+
+	/**
+	 * Constructs an empty list with the given node size.
+	 *
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	PrimitiveStoutList(int nodeSize) {
+		if (nodeSize <= 0 || nodeSize % 2 != 0)
+			throw new IllegalArgumentException();
+		this.nodeSize = nodeSize;
+		head = new Node();
+		tail = new Node();
+		head.next = tail;
+		tail.previous = head;
+		index = new PositionIndex<>(head);
+	}
+
+	/**
+	 * @param length length of the array
+	 * @return new element array of the given length
+	 */
+	abstract A newArray(int length);
+
+	/**
+	 * Size of the list.
+	 *
+	 * @return size number of elements in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether the list has no elements
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all elements from the list.
+	 */
+	public void clear() {
+		modCount++;
+		head.next = tail;
+		tail.previous = head;
+		index.root = null;
+		size = 0;
+	}
+
+	/**
+	 * Copies the elements of the list into an array in list order.
+	 *
+	 * @return array holding elements from the list
+	 */
+	public A toArray() {
+		A dataList = newArray(size);
+		int tempIndex = 0;
+		for (Node temp = head.next; temp != tail; temp = temp.next) {
+			System.arraycopy(temp.data, 0, dataList, tempIndex, temp.count);
+			tempIndex += temp.count;
+		}
+		return dataList;
+	}
+
+	/**
+	 * Replaces the contents of the list with arr, filling every node but
+	 * (possibly) the last one. Existing nodes are reused in order.
+	 *
+	 * @param arr elements to be stored, in list order
+	 */
+	void repack(A arr) {
+		int length = Array.getLength(arr);
+		Node prev = head;
+		Node current = head.next;
+		int i = 0;
+		while (i < length) {
+			Node n;
+			if (current != tail) {
+				n = current;
+				current = current.next;
+			} else {
+				n = new Node();
+			}
+			int k = Math.min(nodeSize, length - i);
+			System.arraycopy(arr, i, n.data, 0, k);
+			n.count = k;
+			n.previous = prev;
+			prev.next = n;
+			prev = n;
+			i += k;
+		}
+		prev.next = tail;
+		tail.previous = prev;
+		size = length;
+		modCount++;
+		index.rebuild(tail);
+	}
+
+	/**
+	 * Returns a string representation of this list showing the internal structure
+	 * of the nodes.
+	 */
+	public String toStringInternal() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		Node current = head.next;
+		while (current != tail) {
+			sb.append('(');
+			for (int i = 0; i < nodeSize; ++i) {
+				if (i > 0)
+					sb.append(", ");
+				if (i < current.count)
+					sb.append(Array.get(current.data, i));
+				else
+					sb.append("-");
+			}
+			sb.append(')');
+			current = current.next;
+			if (current != tail)
+				sb.append(", ");
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/**
+	 * Makes room for an item at the given node and offset, splitting the node if
+	 * it is full. The caller stores the item at the offset left in foundOffset of
+	 * the returned node.
+	 *
+	 * @param target node the item is to be added to, or tail to append
+	 * @param offset offset the item is to be added at
+	 * @return node the new slot ended up in
+	 */
+	Node insert(Node target, int offset) {
+		Node placed;
+		// if it is an empty list
+		if (head.next == tail) {
+			placed = new Node();
+			link(head, placed);
+			offset = 0;
+		}
+		// if offset is zero and the predecessor has room, put the item there
+		else if (offset == 0 && target.previous != head && target.previous.count < nodeSize) {
+			placed = target.previous;
+			offset = placed.count;
+		}
+		// appending past a full last node starts a new node
+		else if (target == tail) {
+			placed = new Node();
+			link(tail.previous, placed);
+			offset = 0;
+		} else if (target.count < nodeSize) {
+			placed = target;
+		// perform a split operation
+		} else {
+			// move the last half of target into a new node
+			Node n = new Node();
+			System.arraycopy(target.data, nodeSize / 2, n.data, 0, nodeSize / 2);
+			n.count = nodeSize / 2;
+			target.count = nodeSize / 2;
+			target.reweigh(-(nodeSize / 2));
+			link(target, n);
+
+			if (offset <= nodeSize / 2) {
+				placed = target;
+			} else {
+				placed = n;
+				offset -= nodeSize / 2;
+			}
+		}
+		placed.open(offset);
+		foundOffset = offset;
+		size++;
+		modCount++;
+		return placed;
+	}
+
+	/**
+	 * Removes the item at the given node and offset, merging with the successor
+	 * if the node drops below half full.
+	 *
+	 * @param temp node item is at
+	 * @param offset offset item is at
+	 */
+	void delete(Node temp, int offset) {
+		// if the node containing the item is the last node and has only one
+		// element, delete it
+		if (temp.next == tail && temp.count == 1) {
+			temp.close(offset);
+			unlink(temp);
+		}
+		// otherwise, if it is the last node or has more than M/2 elements,
+		// remove the item from it
+		else if (temp.next == tail || temp.count > nodeSize / 2) {
+			temp.close(offset);
+		}
+		// otherwise merge with the successor
+		else {
+			temp.close(offset);
+			Node succesor = temp.next;
+
+			// mini-merge: move the first element of the successor
+			if (succesor.count > nodeSize / 2) {
+				System.arraycopy(succesor.data, 0, temp.data, temp.count, 1);
+				temp.open(temp.count);
+				succesor.close(0);
+			}
+			// full merge: move all elements of the successor and delete it
+			else {
+				System.arraycopy(succesor.data, 0, temp.data, temp.count, succesor.count);
+				temp.count += succesor.count;
+				temp.reweigh(succesor.count);
+				unlink(succesor);
+			}
+		}
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Finds the node the position is located at and leaves the offset within it in
+	 * foundOffset. A position equal to size maps to offset 0 of the tail dummy
+	 * node.
+	 *
+	 * @param pos position item is at
+	 * @return node pos is in
+	 */
+	Node find(int pos) {
+		if (pos == size) {
+			foundOffset = 0;
+			return tail;
+		}
+		Node n = index.find(pos);
+		foundOffset = index.offset;
+		return n;
+	}
+
+	/**
+	 * Links node n into the list directly after prev, which may be head.
+	 *
+	 * @param prev node to link after
+	 * @param n node to be linked
+	 */
+	private void link(Node prev, Node n) {
+		n.next = prev.next;
+		n.previous = prev;
+		prev.next.previous = n;
+		prev.next = n;
+		index.insert(prev, n);
+	}
+
+	/**
+	 * Unlinks node n from the list.
+	 *
+	 * @param n node to be unlinked
+	 */
+	private void unlink(Node n) {
+		n.previous.next = n.next;
+		n.next.previous = n.previous;
+		index.remove(n);
+	}
+
+	/**
+	 * Node type for these lists. Each node holds a maximum of nodeSize elements in
+	 * an array. Slots at or past count are unused.
+	 */
+	final class Node extends IndexedNode<Node> {
+		/**
+		 * Array of actual data elements.
+		 */
+		final A data = newArray(nodeSize);
+
+		/**
+		 * Opens a slot at the indicated offset, shifting elements to the right as
+		 * necessary. The slot keeps whatever it held before. Precondition: count
+		 * < nodeSize
+		 *
+		 * @param offset array index of the new slot
+		 */
+		void open(int offset) {
+			System.arraycopy(data, offset, data, offset + 1, count - offset);
+			++count;
+			if (indexed)
+				reweigh(1);
+		}
+
+		/**
+		 * Deletes an element from this node at the indicated offset, shifting elements
+		 * left as necessary. Precondition: 0 <= offset < count
+		 *
+		 * @param offset
+		 */
+		void close(int offset) {
+			System.arraycopy(data, offset + 1, data, offset, count - offset - 1);
+			--count;
+			if (indexed)
+				reweigh(-1);
+		}
+	}
+
+	/**
+	 * Doubly linked list cursor for the primitive iterators. Like StoutList's
+	 * iterator it keeps a (node, offset) cursor, edits the nodes in place and is
+	 * fail-fast; the subclasses read and write the elements it lands on.
+	 */
+	abstract class Cursor {
+		final int LAST_ACTION_PREV = 0;
+		final int LAST_ACTION_NEXT = 1;
+
+		/**
+		 * pointer of iterator
+		 */
+		int currentPosition;
+
+		/**
+		 * node and offset of the element at currentPosition
+		 */
+		Node cursorNode;
+		int cursorOffset;
+
+		/**
+		 * node and offset of the element last returned by the iterator
+		 */
+		Node lastNode;
+		int lastOffset;
+
+		/**
+		 * tracks the last action taken, for remove() and set()
+		 */
+		int lastAction;
+
+		/**
+		 * modCount of the list this iterator expects
+		 */
+		int expectedModCount;
+
+		/**
+		 * Sets the pointer of iterator to the specific index of the list
+		 *
+		 * @param pos
+		 */
+		Cursor(int pos) {
+			if (pos < 0 || pos > size)
+				throw new IndexOutOfBoundsException();
+			cursorNode = find(pos);
+			cursorOffset = foundOffset;
+			currentPosition = pos;
+			lastAction = -1;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Moves the cursor to the start of the next node if it has run past the
+		 * last element of its node.
+		 */
+		private void normalize() {
+			if (cursorNode != tail && cursorOffset >= cursorNode.count) {
+				cursorNode = cursorNode.next;
+				cursorOffset = 0;
+			}
+		}
+
+		/**
+		 * Throws ConcurrentModificationException if the list was structurally
+		 * modified other than through this iterator.
+		 */
+		private void checkForComodification() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+
+		/**
+		 * @return whether iterator has next available value or not
+		 */
+		public boolean hasNext() {
+			return currentPosition < size;
+		}
+
+		/**
+		 * Moves the cursor over the next element and leaves it in lastNode and
+		 * lastOffset.
+		 */
+		void forward() {
+			checkForComodification();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastAction = LAST_ACTION_NEXT;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+			cursorOffset++;
+			currentPosition++;
+			normalize();
+		}
+
+		/**
+		 * @return whether iterator has previous available value or not
+		 */
+		public boolean hasPrevious() {
+			return currentPosition > 0;
+		}
+
+		/**
+		 * Moves the cursor back over the previous element and leaves it in lastNode
+		 * and lastOffset.
+		 */
+		void backward() {
+			checkForComodification();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+			if (cursorOffset == 0) {
+				cursorNode = cursorNode.previous;
+				cursorOffset = cursorNode.count;
+			}
+			cursorOffset--;
+			currentPosition--;
+			lastAction = LAST_ACTION_PREV;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+		}
+
+		/**
+		 * @return index of next available element
+		 */
+		public int nextIndex() {
+			return currentPosition;
+		}
+
+		/**
+		 * @return index of previous element
+		 */
+		public int previousIndex() {
+			return currentPosition - 1;
+		}
+
+		/**
+		 * Removes from the list the last element returned by the iterator.
+		 */
+		public void remove() {
+			checkForComodification();
+			if (lastAction == LAST_ACTION_NEXT) {
+				currentPosition--;
+			} else if (lastAction != LAST_ACTION_PREV) {
+				throw new IllegalStateException();
+			}
+			Node following = lastNode.next;
+			delete(lastNode, lastOffset);
+			if (lastNode.indexed) {
+				cursorNode = lastNode;
+				cursorOffset = lastOffset;
+				normalize();
+			} else {
+				cursorNode = following;
+				cursorOffset = 0;
+			}
+			expectedModCount = modCount;
+			lastAction = -1;
+		}
+
+		/**
+		 * Checks that there is an element last returned by the iterator to be
+		 * replaced, which is left in lastNode and lastOffset.
+		 */
+		void checkLast() {
+			checkForComodification();
+			if (lastAction != LAST_ACTION_NEXT && lastAction != LAST_ACTION_PREV)
+				throw new IllegalStateException();
+		}
+
+		/**
+		 * Makes room for an element before the element the iterator would return
+		 * next. The caller stores it at the offset left in foundOffset of the
+		 * returned node.
+		 *
+		 * @return node the new slot ended up in
+		 */
+		Node insert() {
+			checkForComodification();
+			Node placed = PrimitiveStoutList.this.insert(cursorNode, cursorOffset);
+			cursorNode = placed;
+			cursorOffset = foundOffset + 1;
+			normalize();
+			currentPosition++;
+			expectedModCount = modCount;
+			lastAction = -1;
+			return placed;
+		}
+	}
+}
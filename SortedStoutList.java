@@ -0,0 +1,267 @@
+package edu.iastate.cs228;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of elements kept in natural order in a StoutList. Elements are inserted
+ * at their sorted position, so the nodes split and merge by the usual
+ * StoutList rules, and lookups binary search the nodes by their first and last
+ * elements and then the data of one node. contains, add, remove, floor,
+ * ceiling and the start of a range scan take O(log n); scans then walk the
+ * nodes in order.
+ *
+ * Besides the NavigableSet-style lookups the set can be read by position:
+ * get(i) returns the element of rank i and indexOf returns the rank of an
+ * element.
+ */
+public class SortedStoutList<E extends Comparable<? super E>> extends AbstractSet<E>
+{
+
+	/**
+	 * Elements in non-decreasing order, without duplicates.
+	 */
+	private final StoutList<E> list;
+
+	/**
+	 * Constructs an empty set with the default node size.
+	 */
+	public SortedStoutList() {
+		list = new StoutList<>();
+	}
+
+	/**
+	 * Constructs an empty set with the given node size.
+	 *
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	public SortedStoutList(int nodeSize) {
+		list = new StoutList<>(nodeSize);
+	}
+
+	@Override
+	public int size() {
+		return list.size();
+	}
+
+	/**
+	 * Adds item at its sorted position unless an equal element is present.
+	 *
+	 * @param item item to be added
+	 * @return true if item is added, false otherwise
+	 */
+	@Override
+	public boolean add(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		int pos = list.search(item, false);
+		if (pos < list.size() && list.get(pos).compareTo(item) == 0)
+			return false;
+		list.add(pos, item);
+		return true;
+	}
+
+	/**
+	 * Checks whether an element equal to o is in the set.
+	 *
+	 * @param o item to look for
+	 * @return true if the set contains o, false otherwise
+	 */
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Removes the element equal to o, if any.
+	 *
+	 * @param o item to be removed
+	 * @return true if an element is removed, false otherwise
+	 */
+	@Override
+	public boolean remove(Object o) {
+		int pos = indexOf(o);
+		if (pos < 0)
+			return false;
+		list.remove(pos);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		list.clear();
+	}
+
+	/**
+	 * Returns the element of rank pos, i.e. the element that has pos elements
+	 * less than it.
+	 *
+	 * @param pos rank of the element
+	 * @return E element at the given rank
+	 */
+	public E get(int pos) {
+		return list.get(pos);
+	}
+
+	/**
+	 * Returns the rank of the element equal to o.
+	 *
+	 * @param o item to look for
+	 * @return number of elements less than o, or -1 if o is not in the set
+	 */
+	public int indexOf(Object o) {
+		if (o == null)
+			return -1;
+		E key;
+		try {
+			key = (E) o;
+			int pos = list.search(key, false);
+			if (pos < list.size() && list.get(pos).compareTo(key) == 0)
+				return pos;
+		} catch (ClassCastException e) {
+			// not comparable with the elements, so not in the set
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the least element
+	 * @throws NoSuchElementException if the set is empty
+	 */
+	public E first() {
+		if (list.isEmpty())
+			throw new NoSuchElementException();
+		return list.get(0);
+	}
+
+	/**
+	 * @return the greatest element
+	 * @throws NoSuchElementException if the set is empty
+	 */
+	public E last() {
+		if (list.isEmpty())
+			throw new NoSuchElementException();
+		return list.get(list.size() - 1);
+	}
+
+	/**
+	 * @return the greatest element less than key, or null if there is none
+	 */
+	public E lower(E key) {
+		return at(list.search(key, false) - 1);
+	}
+
+	/**
+	 * @return the greatest element less than or equal to key, or null if there is
+	 *         none
+	 */
+	public E floor(E key) {
+		return at(list.search(key, true) - 1);
+	}
+
+	/**
+	 * @return the least element greater than or equal to key, or null if there is
+	 *         none
+	 */
+	public E ceiling(E key) {
+		return at(list.search(key, false));
+	}
+
+	/**
+	 * @return the least element greater than key, or null if there is none
+	 */
+	public E higher(E key) {
+		return at(list.search(key, true));
+	}
+
+	/**
+	 * Removes and returns the least element.
+	 *
+	 * @return the removed element, or null if the set is empty
+	 */
+	public E pollFirst() {
+		return list.isEmpty() ? null : list.remove(0);
+	}
+
+	/**
+	 * Removes and returns the greatest element.
+	 *
+	 * @return the removed element, or null if the set is empty
+	 */
+	public E pollLast() {
+		return list.isEmpty() ? null : list.remove(list.size() - 1);
+	}
+
+	/**
+	 * Returns a read-only view of the elements between from and to, in ascending
+	 * order. Locating the ends takes O(log n); iterating the view walks the nodes
+	 * from the first one in range. The view must not be used after the set is
+	 * modified.
+	 *
+	 * @param from          low end of the range
+	 * @param fromInclusive whether from itself is in range
+	 * @param to            high end of the range
+	 * @param toInclusive   whether to itself is in range
+	 * @return elements in range
+	 */
+	public List<E> range(E from, boolean fromInclusive, E to, boolean toInclusive) {
+		if (from.compareTo(to) > 0)
+			throw new IllegalArgumentException();
+		int lo = list.search(from, !fromInclusive);
+		int hi = list.search(to, toInclusive);
+		return Collections.unmodifiableList(list.subList(lo, Math.max(lo, hi)));
+	}
+
+	/**
+	 * Returns an iterator over the elements in ascending order. Its remove()
+	 * removes from the set.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return list.iterator();
+	}
+
+	/**
+	 * Returns an iterator over the elements in descending order. Its remove()
+	 * removes from the set.
+	 */
+	public Iterator<E> descendingIterator() {
+		ListIterator<E> iter = list.listIterator(list.size());
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return iter.hasPrevious();
+			}
+
+			@Override
+			public E next() {
+				return iter.previous();
+			}
+
+			@Override
+			public void remove() {
+				iter.remove();
+			}
+		};
+	}
+
+	/**
+	 * Returns a string representation of this set showing the internal structure
+	 * of the nodes.
+	 */
+	public String toStringInternal() {
+		return list.toStringInternal();
+	}
+
+	/**
+	 * @return element at pos, or null if pos is outside the set
+	 */
+	private E at(int pos) {
+		return pos < 0 || pos >= list.size() ? null : list.get(pos);
+	}
+}
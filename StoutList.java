@@ -1,11 +1,27 @@
 package edu.iastate.cs228;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractList;
 import java.util.AbstractSequentialList;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * @author Cade Bradford
@@ -16,7 +32,7 @@ import java.util.NoSuchElementException;
  * elements ensure that each node (except possibly the last one)
  * is at least half full.
  */
-public class StoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E>
+public class StoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E> implements Deque<E>
 {
 
 	/**
@@ -25,9 +41,34 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	private static final int DEFAULT_NODESIZE = 4;
 
 	/**
-	 * Number of elements that can be stored in each node.
+	 * Header of the stream format written by writeTo(): magic number, format
+	 * version, element width and size, 4 bytes each.
 	 */
-	private final int nodeSize;
+	private static final int STREAM_MAGIC = 0x53544F53;
+	private static final int STREAM_VERSION = 1;
+	private static final int STREAM_HEADER = 16;
+
+	/**
+	 * Default minimum size for which parallelSort() sorts in parallel.
+	 */
+	private static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+	/**
+	 * Default bounds for the node size chosen in adaptive mode.
+	 */
+	private static final int DEFAULT_MIN_ADAPTIVE_NODESIZE = 16;
+	private static final int DEFAULT_MAX_ADAPTIVE_NODESIZE = 256;
+
+	/**
+	 * Minimum number of operations between two adaptive node size decisions.
+	 */
+	private static final int ADAPT_WINDOW = 1 << 12;
+
+	/**
+	 * Number of elements that can be stored in each node. Fixed unless adaptive
+	 * mode is on.
+	 */
+	private int nodeSize;
 
 	/**
 	 * Dummy node for head. It should be private but set to public here only for
@@ -46,6 +87,60 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 */
 	private int size;
 
+	/**
+	 * Position index, a treap over the nodes between head and tail keyed
+	 * implicitly by list order. Each node caches the number of elements in its
+	 * subtree so find() can descend to a position in O(log n) expected time.
+	 */
+	private final PositionIndex<Node> index;
+
+	/**
+	 * Offset found by the last call to find(int) or add(Node, int, E).
+	 */
+	private int foundOffset;
+
+	/**
+	 * Optional uniqueness index mapping each element to the node holding it, or
+	 * null when the list was constructed without one. When present, contains(),
+	 * indexOf() and duplicate rejection run in O(1) expected time plus an
+	 * O(log n) rank lookup, and every mutation rejects duplicate elements.
+	 */
+	private HashMap<E, Node> members;
+
+	/**
+	 * Lists smaller than this are sorted sequentially by parallelSort().
+	 */
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * Whether the node size adapts to the workload, and the bounds it may take.
+	 */
+	private boolean adaptive;
+	private int minNodeSize;
+	private int maxNodeSize;
+
+	/**
+	 * Positional reads and middle edits counted in the current adaptive window.
+	 */
+	private int reads;
+	private int edits;
+
+	/**
+	 * Receiver of structural events, or null when the list is not instrumented.
+	 */
+	private StoutListListener listener;
+
+	/**
+	 * Recycler of node arrays, or null.
+	 */
+	private NodePool pool;
+
+	/**
+	 * Number of snapshots taken. A node's data array created before the latest
+	 * snapshot may be shared with it and is copied before it is modified.
+	 */
+	private int snapshotEpoch;
+
 	/**
 	 * Constructs an empty list with the default node size.
 	 */
@@ -67,9 +162,37 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		tail = new Node();
 		head.next = tail;
 		tail.previous = head;
+		index = new PositionIndex<>(head);
 		this.nodeSize = nodeSize;
 	}
 
+	/**
+	 * Constructs an empty list with the given node size, optionally backed by a
+	 * uniqueness index.
+	 * 
+	 * @param nodeSize    number of elements that may be stored in each node, must
+	 *                    be an even number
+	 * @param uniqueIndex whether to maintain a hash index of the elements
+	 */
+	public StoutList(int nodeSize, boolean uniqueIndex) {
+		this(nodeSize);
+		if (uniqueIndex)
+			members = new HashMap<>();
+	}
+
+	/**
+	 * Constructs a list holding the distinct elements of c in iteration order,
+	 * packed into full nodes.
+	 * 
+	 * @param c        elements to be added
+	 * @param nodeSize number of elements that may be stored in each node, must be
+	 *                 an even number
+	 */
+	public StoutList(Collection<? extends E> c, int nodeSize) {
+		this(nodeSize);
+		addAll(c);
+	}
+
 	/**
 	 * Constructor for grading only. Fully implemented.
 	 * 
@@ -83,6 +206,8 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		this.tail = tail;
 		this.nodeSize = nodeSize;
 		this.size = size;
+		index = new PositionIndex<>(head);
+		index.rebuild(tail);
 	}
 
 	/**
@@ -106,18 +231,18 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		
 		if(contains(item))
 			return false;
 
+		// a rejected duplicate is not an edit, so it must not trigger rechunking
+		if (adaptive)
+			adapt();
+
 		// if it is an empty list
 		if (size == 0) {
 			Node n = new Node();
 			n.addItem(item);
-			head.next = n;
-			n.previous = head;
-			n.next = tail;
-			tail.previous = n;
+			link(head, n);
 		} else {
 			// if last node is NOT full, just add the item to the last node
 			if (tail.previous.count < nodeSize) {
@@ -127,31 +252,303 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			else {
 				Node n = new Node();
 				n.addItem(item);
-				Node temp = tail.previous;
-				temp.next = n;
-				n.previous = temp;
-				n.next = tail;
-				tail.previous = n;
+				link(tail.previous, n);
 			}
 		}
 		// increase the size of list, since item has been added
 		size++;
+		modCount++;
 		return true;
 	}
-	public boolean contains(E item) {
-		if(size < 1)
+	/**
+	 * Adds the elements of c to the end of the StoutList in iteration order.
+	 * Like add(E), elements already in the list, or repeated within c, are
+	 * skipped. Without the uniqueness index, the elements already in the list
+	 * are found in one scan against a set of c's elements, so the extra memory
+	 * is O(|c|) whatever the size of the list. The new elements are packed into
+	 * full nodes in one pass.
+	 * 
+	 * @param c elements to be added
+	 * @return true if any element was added, false otherwise
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		HashSet<E> fresh = new HashSet<>();
+		E[] items = (E[]) new Comparable[c.size()];
+		int k = 0;
+		for (E item : c) {
+			if (item == null)
+				throw new NullPointerException();
+			if ((members == null || !members.containsKey(item)) && fresh.add(item))
+				items[k++] = item;
+		}
+		if (members == null && k > 0 && size > 0) {
+			int present = 0;
+			for (Node temp = head.next; temp != tail && present < k; temp = temp.next) {
+				for (int i = 0; i < temp.count; i++) {
+					if (fresh.remove(temp.item(i)))
+						present++;
+				}
+			}
+			if (present > 0) {
+				int kept = 0;
+				for (int i = 0; i < k; i++) {
+					if (fresh.contains(items[i]))
+						items[kept++] = items[i];
+				}
+				k = kept;
+			}
+		}
+		if (k == 0)
 			return false;
-		Node temp = head.next;
-		while(temp != tail) {
-			for(int i=0;i<temp.count;i++) {
-				if(temp.data[i].equals(item))
-					return true;
-				temp = temp.next;
+		splice(size, items, k);
+		return true;
+	}
+
+	/**
+	 * Inserts the elements of c at a specific position in the StoutList in
+	 * iteration order. The node at pos is split at most once and the new
+	 * elements are packed into full nodes in one pass.
+	 * 
+	 * @param pos position for the first element to be added at
+	 * @param c elements to be added
+	 * @return true if any element was added, false otherwise
+	 */
+	@Override
+	public boolean addAll(int pos, Collection<? extends E> c) {
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		E[] items = (E[]) c.toArray(new Comparable[0]);
+		HashSet<E> seen = members == null ? null : new HashSet<>();
+		for (E item : items) {
+			if (item == null)
+				throw new NullPointerException();
+			if (seen != null && !seen.add(item))
+				throw new IllegalArgumentException("duplicate element: " + item);
+			checkUnique(item);
+		}
+		if (items.length == 0)
+			return false;
+		splice(pos, items, items.length);
+		return true;
+	}
+
+	/**
+	 * Inserts items[0..k) at pos. The elements of the node at pos from the
+	 * insertion offset on are moved behind the new ones, the node before the
+	 * insertion point is topped up, and the rest is packed into new full nodes.
+	 * The last two nodes written are rebalanced if needed so that every node
+	 * except the last is at least half full.
+	 * 
+	 * @param pos position for the first item to be added at
+	 * @param items items to be added
+	 * @param k number of items to be added
+	 */
+	private void splice(int pos, E[] items, int k) {
+		Node node = find(pos);
+		int offset = foundOffset;
+
+		// stream of elements to be written: the new items, then the rest of node
+		int rest = node == tail ? 0 : node.count - offset;
+		E[] stream = (E[]) new Comparable[k + rest];
+		System.arraycopy(items, 0, stream, 0, k);
+		if (rest > 0) {
+			System.arraycopy(node.data, node.start + offset, stream, k, rest);
+			node.removeRange(offset, node.count);
+		}
+		Node anchor = node;
+		if (offset == 0) {
+			anchor = node.previous;
+			if (node != tail)
+				unlink(node);
+		}
+
+		int i = 0;
+		if (anchor != head) {
+			while (anchor.count < nodeSize && i < stream.length)
+				anchor.addItem(stream[i++]);
+		}
+		Node after = anchor.next;
+		int remaining = stream.length - i;
+		if (remaining > 0) {
+			int chunks = (remaining + nodeSize - 1) / nodeSize;
+			int last = remaining - (chunks - 1) * nodeSize;
+			int beforeLast = nodeSize;
+			if (last < nodeSize / 2 && after != tail) {
+				if (chunks > 1) {
+					// split the last two chunks evenly
+					beforeLast = (nodeSize + last) - (nodeSize + last) / 2;
+					last = (nodeSize + last) / 2;
+				} else {
+					// anchor is full here; move its last elements into the chunk
+					int borrow = nodeSize / 2 - last;
+					E[] grown = (E[]) new Comparable[remaining + borrow];
+					System.arraycopy(anchor.data, anchor.start + anchor.count - borrow, grown, 0, borrow);
+					System.arraycopy(stream, i, grown, borrow, remaining);
+					anchor.removeRange(anchor.count - borrow, anchor.count);
+					stream = grown;
+					i = 0;
+					last += borrow;
+				}
+			}
+			Node prev = anchor;
+			for (int c = 0; c < chunks; c++) {
+				int len = c == chunks - 1 ? last : c == chunks - 2 ? beforeLast : nodeSize;
+				Node n = new Node();
+				for (int j = 0; j < len; j++)
+					n.addItem(stream[i++]);
+				link(prev, n);
+				prev = n;
 			}
 		}
-		return false;
+		size += k;
+		modCount++;
+	}
+
+	/**
+	 * Checks whether item is in the StoutList.
+	 * 
+	 * @param item item to look for
+	 * @return true if the list contains item, false otherwise
+	 */
+	public boolean contains(E item) {
+		return contains((Object) item);
+	}
+
+	/**
+	 * Checks whether o is in the StoutList. With the uniqueness index this is a
+	 * single hash lookup; otherwise the nodes are scanned.
+	 * 
+	 * @param o element to look for
+	 * @return true if the list contains o, false otherwise
+	 */
+	@Override
+	public boolean contains(Object o) {
+		if (members != null)
+			return o != null && members.containsKey(o);
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Returns the position of the first occurrence of o in the StoutList.
+	 * 
+	 * @param o element to look for
+	 * @return position of o, or -1 if it is not in the list
+	 */
+	@Override
+	public int indexOf(Object o) {
+		if (o == null)
+			return -1;
+		if (members != null) {
+			Node n = members.get(o);
+			if (n == null)
+				return -1;
+			for (int i = 0; i < n.count; i++) {
+				if (n.item(i).equals(o))
+					return n.rank() + i;
+			}
+			return -1;
+		}
+		int pos = 0;
+		for (Node temp = head.next; temp != tail; temp = temp.next) {
+			for (int i = 0; i < temp.count; i++) {
+				if (temp.item(i).equals(o))
+					return pos + i;
+			}
+			pos += temp.count;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position of the last occurrence of o in the StoutList.
+	 * 
+	 * @param o element to look for
+	 * @return position of o, or -1 if it is not in the list
+	 */
+	@Override
+	public int lastIndexOf(Object o) {
+		if (o == null)
+			return -1;
+		// elements are unique when the index is present
+		if (members != null)
+			return indexOf(o);
+		int pos = size;
+		for (Node temp = tail.previous; temp != head; temp = temp.previous) {
+			pos -= temp.count;
+			for (int i = temp.count - 1; i >= 0; i--) {
+				if (temp.item(i).equals(o))
+					return pos + i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Throws IllegalArgumentException if the uniqueness index is present and
+	 * already holds item.
+	 * 
+	 * @param item item about to be added
+	 */
+	private void checkUnique(E item) {
+		if (members != null && members.containsKey(item))
+			throw new IllegalArgumentException("duplicate element: " + item);
+	}
+
+	/**
+	 * Replaces the item at the given node and offset, keeping the uniqueness
+	 * index in sync.
+	 * 
+	 * @param n node item is at
+	 * @param offset offset item is at
+	 * @param item replacing item
+	 * @return E item previously at the given node and offset
+	 */
+	private E replace(Node n, int offset, E item) {
+		E old = n.item(offset);
+		if (members != null && !old.equals(item)) {
+			checkUnique(item);
+			members.remove(old);
+			members.put(item, n);
+		}
+		n.own();
+		n.setItem(offset, item);
+		return old;
+	}
+
+	/**
+	 * Returns the item at a specific position in StoutList.
+	 * 
+	 * @param pos position of the item
+	 * @return E item at the given position
+	 */
+	@Override
+	public E get(int pos) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		if (adaptive)
+			reads++;
+		return readItem(pos, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Replaces the item at a specific position in StoutList.
+	 * 
+	 * @param pos position of the item to be replaced
+	 * @param item replacing item
+	 * @return E item previously at the given position
+	 */
+	@Override
+	public E set(int pos, E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		if (adaptive)
+			reads++;
+		Node target = find(pos);
+		return replace(target, foundOffset, item);
 	}
-	
 
 	/**
 	 * Adds item to a specific position in StoutList.
@@ -164,67 +561,16 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		if (head.next == tail) {
-			Node n = new Node();
-			this.head.next = n;
-			n.previous = this.head;
-			n.next = this.tail;
-			this.tail.previous = n;
-			n.addItem(item);
-			size++;
-		// otherwise...
-		} else {
-			Node target = find(pos).node;
-			int offset = find(pos).offset;
-			// if offset is zero...
-			if (offset == 0 && target.previous != this.head) {
-				if (target.previous != null) {
-					if (target.previous.count < nodeSize && target.previous != this.head) {
-						Node current = target.previous;
-						current.addItem(item);
-						size++;
-					}
-				} else if (target == tail && target.previous.count == nodeSize) {
-					Node n = new Node();
-	
-					tail.previous.next = n;
-					n.previous = tail.previous;
-	
-					n.next = tail;
-					tail.previous = n;
-	
-					n = add(target, 0, item).node;
-					size++;
-				}
-			} else if (target.count < nodeSize) {
-				target.addItem(offset, item);
-				size++;
-			// perform a split operation
-			} else {
-				// create a new node
-				Node n = new Node();
-	
-				n.next = target.next;
-				target.next.previous = n;
-	
-				target.next = n;
-				n.previous = target;
-				n.addItem(target.data[(nodeSize / 2)]);
-				n.addItem(target.data[(nodeSize / 2) + 1]);
-
-				// remove last two items
-				target.removeItem((nodeSize / 2));
-				target.removeItem((nodeSize / 2) + 1);
-	
-				if (offset <= nodeSize / 2) {
-					target.addItem(offset, item);
-					size++;
-				} else if (offset > nodeSize / 2) {
-					n.addItem(offset - (nodeSize / 2), item);
-					size++;
-				}
-			}
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		if (adaptive) {
+			checkUnique(item);
+			adapt();
+			if (pos < size)
+				edits++;
 		}
+		Node target = find(pos);
+		add(target, foundOffset, item);
 	}
 
 	/**
@@ -235,126 +581,1542 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 */
 	@Override
 	public E remove(int pos) {
-		if (pos < 0 || pos > size)
+		if (pos < 0 || pos >= size)
 			throw new IndexOutOfBoundsException();
-		NodeInfo nodeInfo = find(pos);
-		Node temp = nodeInfo.node;
-		int offset = nodeInfo.offset;
-		E nodeValue = temp.data[offset];
+		if (adaptive) {
+			adapt();
+			if (pos < size - 1)
+				edits++;
+		}
+		Node target = find(pos);
+		return remove(target, foundOffset);
+	}
 
-		// if the node n containing X is the last node and has only one element, delete it
-		if (temp.next == tail && temp.count == 1) {
-			Node predecessor = temp.previous;
-			predecessor.next = temp.next;
-			temp.next.previous = predecessor;
-			temp = null;
+	/**
+	 * Removes the items at positions [fromIndex, toIndex). Nodes entirely inside
+	 * the range are unlinked as a whole and only the two boundary nodes are
+	 * edited and rebalanced. This also backs subList(from, to).clear().
+	 * 
+	 * @param fromIndex position of the first item to be removed
+	 * @param toIndex one past the position of the last item to be removed
+	 */
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex)
+			return;
+		Node a = find(fromIndex);
+		int firstOffset = foundOffset;
+		Node b = find(toIndex);
+		int lastOffset = foundOffset;
+		if (a == b) {
+			a.removeRange(firstOffset, lastOffset);
+		} else {
+			a.removeRange(firstOffset, a.count);
+			for (Node n = a.next; n != b; n = n.next) {
+				if (members != null) {
+					for (int i = 0; i < n.count; i++)
+						members.remove(n.item(i), n);
+				}
+				unlink(n);
+			}
+			if (b != tail)
+				b.removeRange(0, lastOffset);
 		}
-		// otherwise, if n is the last node (thus with two or more elements),
-		// or if n has more than M/2 elements, remove X from n, shifting elements as necessary; 
-		else if (temp.next == tail || temp.count > nodeSize / 2) {
-			temp.removeItem(offset);
+		if (a.count == 0)
+			unlink(a);
+		else
+			rebalance(a);
+		if (b != tail && b.indexed)
+			rebalance(b);
+		size -= toIndex - fromIndex;
+		modCount++;
+	}
+
+	/**
+	 * Restores the half-full invariant for n after elements were removed from
+	 * it. As in remove(int), only successors are looked at: while n is less
+	 * than half full, a successor that fits is merged into n, otherwise
+	 * elements are moved from the front of the successor until n is half full.
+	 * 
+	 * @param n node that may have fewer than nodeSize / 2 elements
+	 */
+	private void rebalance(Node n) {
+		while (n.count < nodeSize / 2 && n.next != tail) {
+			Node succesor = n.next;
+			if (n.count + succesor.count <= nodeSize) {
+				for (int i = 0; i < succesor.count; i++)
+					n.addItem(succesor.item(i));
+				unlink(succesor);
+				if (listener != null)
+					listener.nodesMerged();
+			} else {
+				int moved = nodeSize / 2 - n.count;
+				for (int i = 0; i < moved; i++)
+					n.addItem(succesor.item(i));
+				succesor.removeRange(0, moved);
+				if (listener != null)
+					listener.elementsBorrowed();
+			}
 		}
-		// otherwise (the node n must have at most  elements), look at its successor n'
-		// (note that we don�t look at the predecessor of n) and perform a merge operation as follows: 
-		else {
-			temp.removeItem(offset);
-			Node succesor = temp.next;
-			
-			// if the successor node n' has more than  elements, move the first element from n' to n. (mini-merge) 
-			if (succesor.count > nodeSize / 2) {
-				temp.addItem(succesor.data[0]);
-				succesor.removeItem(0);
+	}
+
+	/**
+	 * Removes all elements matching filter in two passes over the nodes. The
+	 * first pass only evaluates filter, so the list is left untouched if it
+	 * throws. The second compacts the survivors in place towards the front of
+	 * the chain, filling every node but the last, and unlinks the nodes left
+	 * empty; the position index is rebuilt once at the end.
+	 *
+	 * @param filter predicate returning true for elements to be removed
+	 * @return true if any element was removed, false otherwise
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) {
+		if (filter == null)
+			throw new NullPointerException();
+		int expectedModCount = modCount;
+		long[] doomed = new long[(size + 63) >>> 6];
+		int removed = 0;
+		int pos = 0;
+		for (Node temp = head.next; temp != tail; temp = temp.next) {
+			for (int i = 0; i < temp.count; i++, pos++) {
+				if (filter.test(temp.item(i))) {
+					doomed[pos >>> 6] |= 1L << pos;
+					removed++;
+				}
 			}
-			// if the successor node n' has  or fewer elements, then move all elements from n' to n and delete n' (full merge) 
-			else if (succesor.count <= nodeSize / 2) {
-				for (int i = 0; i < succesor.count; i++) {
-					temp.addItem(succesor.data[i]);
+		}
+		if (modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		if (removed == 0)
+			return false;
+
+		// the write cursor (w, wOffset) never passes the read cursor, so every
+		// slot is read before it is overwritten
+		Node w = head.next;
+		w.own();
+		int wStart = w.start;
+		w.start = 0;
+		int wOffset = 0;
+		pos = 0;
+		for (Node r = head.next; r != tail; r = r.next) {
+			int count = r.count;
+			int rStart = r == w ? wStart : r.start;
+			for (int i = 0; i < count; i++, pos++) {
+				E item = r.data[rStart + i];
+				if ((doomed[pos >>> 6] & (1L << pos)) != 0) {
+					if (members != null)
+						members.remove(item, r);
+					continue;
 				}
-				temp.next = succesor.next;
-				succesor.next.previous = temp;
-				succesor = null;
+				if (wOffset == nodeSize) {
+					w.count = nodeSize;
+					w = w.next;
+					w.own();
+					// w is r or a node before it, and r's start is already captured
+					w.start = 0;
+					wOffset = 0;
+				}
+				w.data[wOffset++] = item;
+				if (members != null && w != r)
+					members.put(item, w);
 			}
 		}
-		// decrease the size of list, since item has been removed
-		size--;
-		return nodeValue;
+		Arrays.fill(w.data, wOffset, w.data.length, null);
+		w.count = wOffset;
+		if (wOffset == 0)
+			w = w.previous;
+		for (Node d = w.next; d != tail; d = d.next)
+			recycle(d);
+		w.next = tail;
+		tail.previous = w;
+		size -= removed;
+		modCount++;
+		index.rebuild(tail);
+		return true;
+	}
+
+	/**
+	 * Removes the elements contained in c in a single compaction pass.
+	 *
+	 * @param c elements to be removed
+	 * @return true if any element was removed, false otherwise
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		if (c == null)
+			throw new NullPointerException();
+		return removeIf(c::contains);
+	}
+
+	/**
+	 * Removes the elements not contained in c in a single compaction pass.
+	 *
+	 * @param c elements to be kept
+	 * @return true if any element was removed, false otherwise
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		if (c == null)
+			throw new NullPointerException();
+		return removeIf(item -> !c.contains(item));
+	}
+
+	/**
+	 * Removes all elements from the StoutList.
+	 */
+	@Override
+	public void clear() {
+		modCount++;
+		if (pool != null) {
+			for (Node n = head.next; n != tail; n = n.next)
+				recycle(n);
+		}
+		head.next = tail;
+		tail.previous = head;
+		index.root = null;
+		if (members != null)
+			members.clear();
+		size = 0;
+	}
+
+	/**
+	 * Inserts item at the front of the StoutList. Goes straight to the first
+	 * node without a position lookup; the elements shifted are at most the
+	 * first node's. Like add(int, E), duplicates are only rejected when the
+	 * uniqueness index is present.
+	 * 
+	 * @param item item to be added
+	 * @throws IllegalArgumentException if the uniqueness index already holds item
+	 */
+	@Override
+	public void addFirst(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (adaptive) {
+			checkUnique(item);
+			adapt();
+		}
+		add(head.next, 0, item);
 	}
 
-	/**
-	 * Comparator used by insertionSort() method.
-	 */
-	class InsertionComparator<E extends Comparable<E>> implements Comparator<E> {
-		@Override
-		public int compare(E o1, E o2) {
-			return o1.compareTo(o2);
+	/**
+	 * Appends item to the StoutList. Unlike add(E), which scans for duplicates
+	 * when there is no uniqueness index, duplicates are only rejected when the
+	 * index is present.
+	 * 
+	 * @param item item to be added
+	 * @throws IllegalArgumentException if the uniqueness index already holds item
+	 */
+	@Override
+	public void addLast(E item) {
+		if (item == null)
+			throw new NullPointerException();
+		if (adaptive) {
+			checkUnique(item);
+			adapt();
+		}
+		add(tail, 0, item);
+	}
+
+	/**
+	 * Inserts item at the front of the StoutList unless the uniqueness index
+	 * already holds it.
+	 * 
+	 * @param item item to be added
+	 * @return true if item is added, false otherwise
+	 */
+	@Override
+	public boolean offerFirst(E item) {
+		if (members != null && members.containsKey(item))
+			return false;
+		addFirst(item);
+		return true;
+	}
+
+	/**
+	 * Appends item to the StoutList unless the uniqueness index already holds
+	 * it.
+	 * 
+	 * @param item item to be added
+	 * @return true if item is added, false otherwise
+	 */
+	@Override
+	public boolean offerLast(E item) {
+		if (members != null && members.containsKey(item))
+			return false;
+		addLast(item);
+		return true;
+	}
+
+	/**
+	 * Removes and returns the first item, or returns null if the list is empty.
+	 * Works on the first node directly; as in remove(int), a node falling below
+	 * half full borrows from or merges with its successor.
+	 * 
+	 * @return E item removed from the list, or null
+	 */
+	@Override
+	public E pollFirst() {
+		if (size == 0)
+			return null;
+		if (adaptive)
+			adapt();
+		return remove(head.next, 0);
+	}
+
+	/**
+	 * Removes and returns the last item, or returns null if the list is empty.
+	 * The last node is exempt from the half-full rule, so nothing is shifted or
+	 * merged.
+	 * 
+	 * @return E item removed from the list, or null
+	 */
+	@Override
+	public E pollLast() {
+		if (size == 0)
+			return null;
+		if (adaptive)
+			adapt();
+		Node last = tail.previous;
+		return remove(last, last.count - 1);
+	}
+
+	@Override
+	public E removeFirst() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return pollFirst();
+	}
+
+	@Override
+	public E removeLast() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return pollLast();
+	}
+
+	@Override
+	public E peekFirst() {
+		return size == 0 ? null : head.next.item(0);
+	}
+
+	@Override
+	public E peekLast() {
+		return size == 0 ? null : tail.previous.item(tail.previous.count - 1);
+	}
+
+	@Override
+	public E getFirst() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return peekFirst();
+	}
+
+	@Override
+	public E getLast() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return peekLast();
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+		int pos = indexOf(o);
+		if (pos < 0)
+			return false;
+		remove(pos);
+		return true;
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+		int pos = lastIndexOf(o);
+		if (pos < 0)
+			return false;
+		remove(pos);
+		return true;
+	}
+
+	@Override
+	public boolean offer(E item) {
+		return offerLast(item);
+	}
+
+	@Override
+	public E remove() {
+		return removeFirst();
+	}
+
+	@Override
+	public E poll() {
+		return pollFirst();
+	}
+
+	@Override
+	public E element() {
+		return getFirst();
+	}
+
+	@Override
+	public E peek() {
+		return peekFirst();
+	}
+
+	@Override
+	public void push(E item) {
+		addFirst(item);
+	}
+
+	@Override
+	public E pop() {
+		return removeFirst();
+	}
+
+	/**
+	 * Returns an iterator over the list from the last element to the first. Its
+	 * remove() removes from the list.
+	 */
+	@Override
+	public Iterator<E> descendingIterator() {
+		ListIterator<E> iter = listIterator(size);
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return iter.hasPrevious();
+			}
+
+			@Override
+			public E next() {
+				return iter.previous();
+			}
+
+			@Override
+			public void remove() {
+				iter.remove();
+			}
+		};
+	}
+
+	/**
+	 * Returns a reverse-ordered view of the list. Changes to either are visible
+	 * in the other. The view is both a List and a Deque, as the list is, so that
+	 * this method satisfies the reversed() of both interfaces on JDKs that
+	 * declare it (21 and later), in the same way as java.util.LinkedList.
+	 * 
+	 * @return reverse-ordered view of the list
+	 */
+	public ReverseView<E> reversed() {
+		return new ReverseView<>(this);
+	}
+
+	/**
+	 * Sort all elements in the stout list in the NON-DECREASING order. The
+	 * elements are copied into an array, sorted with a stable O(n log n) merge
+	 * sort, and written back into the existing nodes. After sorting, all nodes but
+	 * (possibly) the last one are full of elements.
+	 */
+	public void sort() {
+		sort(null);
+	}
+
+	/**
+	 * Sort all elements in the stout list in the NON-INCREASING order. After
+	 * sorting, all but (possibly) the last nodes are filled with elements.
+	 */
+	public void sortReverse() {
+		sort(Comparator.reverseOrder());
+	}
+
+	/**
+	 * Sort all elements in the stout list in the order induced by comp, keeping
+	 * equal elements in their current order. After sorting, all nodes but
+	 * (possibly) the last one are full of elements.
+	 * 
+	 * @param comp comparator used in sorting, or null for the natural order
+	 */
+	@Override
+	public void sort(Comparator<? super E> comp) {
+		E[] sortDataList = elements();
+		Arrays.sort(sortDataList, comp);
+		repack(sortDataList);
+	}
+
+	/**
+	 * Sort all elements in the stout list in the NON-DECREASING order, using
+	 * multiple threads for lists of at least the parallel threshold.
+	 */
+	public void parallelSort() {
+		parallelSort(null);
+	}
+
+	/**
+	 * Sort all elements in the stout list in the NON-INCREASING order, using
+	 * multiple threads for lists of at least the parallel threshold.
+	 */
+	public void parallelSortReverse() {
+		parallelSort(Comparator.reverseOrder());
+	}
+
+	/**
+	 * Sort all elements in the stout list in the order induced by comp. Lists of
+	 * at least the parallel threshold are sorted with Arrays.parallelSort(),
+	 * which sorts pieces of the array as fork/join tasks in the common pool and
+	 * merges them in parallel; smaller lists fall back to sort(). The result is
+	 * stable and written back into full nodes as with sort().
+	 * 
+	 * @param comp comparator used in sorting, or null for the natural order
+	 */
+	public void parallelSort(Comparator<? super E> comp) {
+		if (size < parallelThreshold) {
+			sort(comp);
+			return;
+		}
+		E[] sortDataList = elements();
+		Arrays.parallelSort(sortDataList, comp);
+		repack(sortDataList);
+	}
+
+	/**
+	 * Sets the minimum list size for which parallelSort() sorts in parallel.
+	 * 
+	 * @param threshold minimum size, must be positive
+	 */
+	public void setParallelThreshold(int threshold) {
+		if (threshold <= 0)
+			throw new IllegalArgumentException();
+		parallelThreshold = threshold;
+	}
+
+	/**
+	 * @return number of elements that can currently be stored in each node
+	 */
+	public int getNodeSize() {
+		return nodeSize;
+	}
+
+	/**
+	 * Turns adaptive node sizing on with the default bounds of 16 and 256, or
+	 * turns it off and keeps the current node size.
+	 * 
+	 * @param adaptive whether the node size should follow the workload
+	 */
+	public void setAdaptiveNodeSize(boolean adaptive) {
+		if (adaptive)
+			setAdaptiveNodeSize(DEFAULT_MIN_ADAPTIVE_NODESIZE, DEFAULT_MAX_ADAPTIVE_NODESIZE);
+		else
+			this.adaptive = false;
+	}
+
+	/**
+	 * @return whether adaptive node sizing is on
+	 */
+	public boolean isAdaptiveNodeSize() {
+		return adaptive;
+	}
+
+	/**
+	 * Turns adaptive node sizing on. The list counts positional reads (get, set,
+	 * iterator steps) against edits away from the end (add(int, E), remove(int),
+	 * iterator add/remove). At a structural modification after a window of at
+	 * least max(4096, size) operations, the node size is doubled if reads
+	 * dominate and halved if edits do, and the list is rechunked. Rechunking is
+	 * an O(n) repack, so its cost is amortized to O(1) per counted operation.
+	 * Every node except the last stays at least half full.
+	 * 
+	 * @param minNodeSize smallest node size to use, must be an even number
+	 * @param maxNodeSize largest node size to use, must be an even number
+	 */
+	public void setAdaptiveNodeSize(int minNodeSize, int maxNodeSize) {
+		if (minNodeSize <= 0 || minNodeSize % 2 != 0 || maxNodeSize % 2 != 0 || minNodeSize > maxNodeSize)
+			throw new IllegalArgumentException();
+		this.minNodeSize = minNodeSize;
+		this.maxNodeSize = maxNodeSize;
+		this.adaptive = true;
+		reads = 0;
+		edits = 0;
+	}
+
+	/**
+	 * Rechunks the list if the current adaptive window is complete and the
+	 * counted workload calls for a different node size. Only called at the start
+	 * of a structural modification, which invalidates iterators anyway.
+	 */
+	private void adapt() {
+		if ((long) reads + edits < Math.max(ADAPT_WINDOW, size))
+			return;
+		int target = nodeSize;
+		if (reads >= 16L * edits)
+			target = nodeSize * 2;
+		else if (reads < 2L * edits)
+			target = nodeSize / 2;
+		target = Math.max(minNodeSize, Math.min(maxNodeSize, target));
+		// keep the node size even
+		target += target % 2;
+		reads = 0;
+		edits = 0;
+		if (target != nodeSize) {
+			E[] dataList = elements();
+			nodeSize = target;
+			repack(dataList);
+		}
+	}
+
+	/**
+	 * Copies the elements of the list into an array in list order.
+	 * 
+	 * @return array holding elements from the list
+	 */
+	private E[] elements() {
+		E[] dataList = (E[]) new Comparable[size];
+
+		int tempIndex = 0;
+		Node temp = head.next;
+		while (temp != tail) {
+			System.arraycopy(temp.data, temp.start, dataList, tempIndex, temp.count);
+			tempIndex += temp.count;
+			temp = temp.next;
+		}
+		return dataList;
+	}
+
+	/**
+	 * Replaces the contents of the list with arr, filling every node but
+	 * (possibly) the last one. Existing nodes are reused in order and extra
+	 * nodes are allocated only if arr holds more elements than they can. Reused
+	 * nodes get a new array if the node size has changed.
+	 * 
+	 * @param arr elements to be stored, in list order
+	 */
+	private void repack(E[] arr) {
+		Node prev = head;
+		Node current = head.next;
+		int i = 0;
+		while (i < arr.length) {
+			Node n;
+			if (current != tail) {
+				n = current;
+				current = current.next;
+				if (n.data.length != nodeSize || n.owner != snapshotEpoch) {
+					n.data = newData();
+					n.owner = snapshotEpoch;
+				}
+			} else {
+				n = new Node();
+			}
+			int k = Math.min(nodeSize, arr.length - i);
+			System.arraycopy(arr, i, n.data, 0, k);
+			Arrays.fill(n.data, k, nodeSize, null);
+			n.start = 0;
+			n.count = k;
+			n.previous = prev;
+			prev.next = n;
+			prev = n;
+			i += k;
+		}
+		for (; current != tail; current = current.next)
+			recycle(current);
+		prev.next = tail;
+		tail.previous = prev;
+		size = arr.length;
+		modCount++;
+		index.rebuild(tail);
+		if (members != null) {
+			members.clear();
+			for (Node n = head.next; n != tail; n = n.next) {
+				for (int j = 0; j < n.count; j++)
+					members.put(n.item(j), n);
+			}
+		}
+	}
+
+	/**
+	 * Installs a receiver for structural events (splits, merges, position
+	 * lookups), or removes it if listener is null. Without a listener the list
+	 * does no bookkeeping.
+	 *
+	 * @param listener receiver of events, or null
+	 */
+	public void setListener(StoutListListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Installs a pool that recycles the data arrays of unlinked nodes for new
+	 * ones, or removes it if pool is null. The pool may be shared with other
+	 * lists as described in NodePool. Arrays a snapshot may still see are never
+	 * recycled.
+	 *
+	 * @param pool pool of node arrays, or null
+	 */
+	public void setNodePool(NodePool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the installed node pool, or null
+	 */
+	public NodePool getNodePool() {
+		return pool;
+	}
+
+	/**
+	 * @return an empty data array for a new node, from the pool if there is one
+	 */
+	private E[] newData() {
+		if (pool == null)
+			return (E[]) new Comparable[nodeSize];
+		return (E[]) pool.acquire(nodeSize);
+	}
+
+	/**
+	 * Hands the data array of n, which has just been taken out of the list, to
+	 * the pool, unless there is no pool or a snapshot may still see the array.
+	 * 
+	 * @param n node no longer in the list
+	 */
+	private void recycle(Node n) {
+		if (pool == null || n.owner != snapshotEpoch || n.data == null)
+			return;
+		Arrays.fill(n.data, n.start, n.start + n.count, null);
+		pool.release(n.data);
+		n.data = null;
+	}
+
+	/**
+	 * Walks the nodes and summarizes the current structure: node count, the
+	 * distribution of node fill and an estimate of the heap the list itself
+	 * occupies. O(n / nodeSize).
+	 *
+	 * @return structure of the list at the time of the call
+	 */
+	public Statistics statistics() {
+		int[] fill = new int[nodeSize + 1];
+		int nodes = 0;
+		long bytes = 0;
+		for (Node n = head.next; n != tail; n = n.next) {
+			nodes++;
+			fill[Math.min(n.count, nodeSize)]++;
+			bytes += Statistics.NODE_BYTES + Statistics.arrayBytes(n.data.length);
+		}
+		if (members != null)
+			bytes += Statistics.MEMBER_BYTES * (long) size;
+		return new Statistics(size, nodeSize, nodes, fill, bytes);
+	}
+
+	/**
+	 * Structure of a StoutList as reported by statistics().
+	 */
+	public static final class Statistics {
+		/**
+		 * Estimated sizes in bytes, assuming compressed references: a Node object,
+		 * an array header and a uniqueness index entry with its share of the table.
+		 */
+		static final int NODE_BYTES = 64;
+		static final int ARRAY_HEADER_BYTES = 16;
+		static final int MEMBER_BYTES = 40;
+
+		private final int size;
+		private final int nodeSize;
+		private final int nodeCount;
+		private final int[] fillHistogram;
+		private final long estimatedBytes;
+
+		private Statistics(int size, int nodeSize, int nodeCount, int[] fillHistogram, long estimatedBytes) {
+			this.size = size;
+			this.nodeSize = nodeSize;
+			this.nodeCount = nodeCount;
+			this.fillHistogram = fillHistogram;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+		static long arrayBytes(int length) {
+			return (ARRAY_HEADER_BYTES + 4L * length + 7) & ~7L;
+		}
+
+		/**
+		 * @return number of elements in the list
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return node size at the time of the call
+		 */
+		public int getNodeSize() {
+			return nodeSize;
+		}
+
+		/**
+		 * @return number of nodes, not counting head and tail
+		 */
+		public int getNodeCount() {
+			return nodeCount;
+		}
+
+		/**
+		 * @return array whose element i is the number of nodes holding i elements
+		 */
+		public int[] getFillHistogram() {
+			return fillHistogram.clone();
+		}
+
+		/**
+		 * @return fraction of node slots in use, 1 for an empty list
+		 */
+		public double getFillRatio() {
+			return nodeCount == 0 ? 1 : (double) size / ((long) nodeCount * nodeSize);
+		}
+
+		/**
+		 * @return estimated heap bytes held by the nodes, their arrays and the
+		 *         uniqueness index, not counting the elements themselves
+		 */
+		public long getEstimatedBytes() {
+			return estimatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "size=" + size + ", nodeSize=" + nodeSize + ", nodes=" + nodeCount + ", fillRatio="
+					+ getFillRatio() + ", estimatedBytes=" + estimatedBytes + ", fill=" + Arrays.toString(fillHistogram);
+		}
+	}
+
+	/**
+	 * Applies the changes in batch in one forward pass over the nodes. The
+	 * positions in the batch refer to the list as it was before the batch. The
+	 * position index is used once per node touched by the batch, and each such
+	 * node is rewritten once: its surviving, replaced and inserted elements are
+	 * laid out afresh and spread over as many nodes as they need, each at least
+	 * half full. Nodes left empty are unlinked, and nodes left less than half
+	 * full are rebalanced with their successors at the end of the pass. A node
+	 * touched by a single change that fits is edited in place instead. A batch
+	 * of k changes touching m nodes costs O(k + m (nodeSize + log n)), however
+	 * many changes fall into one node.
+	 * 
+	 * With the uniqueness index, an inserted or replacing element must not
+	 * already be in the list, even at a position the batch removes, and must
+	 * not appear twice in the batch. The batch is checked before the list is
+	 * modified.
+	 * 
+	 * @param batch changes to be applied; it is not modified
+	 * @throws IndexOutOfBoundsException if a position is outside the list
+	 * @throws IllegalArgumentException if the uniqueness index rejects an element
+	 */
+	public void apply(MutationBatch<? extends E> batch) {
+		int k = batch.count;
+		if (k == 0)
+			return;
+		int[] positions = batch.positions;
+		byte[] kinds = batch.kinds;
+		E[] items = batch.items;
+		int lastPos = positions[k - 1];
+		if (lastPos > size || (lastPos == size && kinds[k - 1] != MutationBatch.INSERT))
+			throw new IndexOutOfBoundsException();
+		if (members != null) {
+			HashSet<E> added = new HashSet<>();
+			for (int i = 0; i < k; i++) {
+				if (kinds[i] == MutationBatch.REMOVE)
+					continue;
+				checkUnique(items[i]);
+				if (!added.add(items[i]))
+					throw new IllegalArgumentException("duplicate element: " + items[i]);
+			}
+		}
+		if (adaptive)
+			adapt();
+
+		if (size == 0)
+			// only inserts at 0 are possible; give them a node to go to
+			link(head, new Node());
+		ArrayList<Node> underfull = new ArrayList<>();
+		E[] out = (E[]) new Comparable[nodeSize];
+		// current position of an element minus its position before the batch,
+		// for elements past the nodes rewritten so far
+		int shift = 0;
+		int op = 0;
+		while (op < k) {
+			Node n = find(positions[op] + shift);
+			int offset = foundOffset;
+			if (n == tail) {
+				n = tail.previous;
+				offset = n.count;
+			}
+			int nodeEnd = positions[op] - offset + n.count;
+			boolean last = n.next == tail;
+			int from = op;
+			while (op < k && (positions[op] < nodeEnd || last))
+				op++;
+			if (out.length < n.count + op - from)
+				out = (E[]) new Comparable[n.count + op - from];
+			shift += rewrite(n, positions[from] - offset, batch, from, op, out, underfull);
+		}
+		modCount++;
+		for (Node u : underfull) {
+			if (u.indexed)
+				rebalance(u);
+		}
+	}
+
+	/**
+	 * Rewrites node n with the batch operations [from, to), which all fall within
+	 * it, as part of apply().
+	 * 
+	 * @param n node to be rewritten
+	 * @param nodeStart position of n's first element before the batch
+	 * @param batch batch being applied
+	 * @param from first operation for n
+	 * @param to one past the last operation for n
+	 * @param out scratch array of at least n.count + to - from slots
+	 * @param underfull receives n if it ends up less than half full
+	 * @return change in the number of elements
+	 */
+	private int rewrite(Node n, int nodeStart, MutationBatch<? extends E> batch, int from, int to, E[] out,
+			ArrayList<Node> underfull) {
+		int[] positions = batch.positions;
+		byte[] kinds = batch.kinds;
+		E[] items = batch.items;
+		if (to - from == 1 && editInPlace(n, positions[from] - nodeStart, kinds[from], items[from], underfull))
+			return kinds[from] == MutationBatch.INSERT ? 1 : kinds[from] == MutationBatch.REMOVE ? -1 : 0;
+
+		// the elements between operations are copied in runs, without being
+		// touched one by one
+		int j = 0;
+		int i = 0;
+		for (int o = from; o < to; o++) {
+			int offset = positions[o] - nodeStart;
+			System.arraycopy(n.data, n.start + i, out, j, offset - i);
+			j += offset - i;
+			i = offset;
+			if (kinds[o] != MutationBatch.INSERT) {
+				if (members != null)
+					members.remove(n.item(i), n);
+				i++;
+			}
+			if (kinds[o] != MutationBatch.REMOVE) {
+				out[j++] = items[o];
+				if (members != null)
+					members.put(items[o], n);
+			}
+		}
+		System.arraycopy(n.data, n.start + i, out, j, n.count - i);
+		j += n.count - i;
+
+		int change = j - n.count;
+		size += change;
+		if (j == 0) {
+			unlink(n);
+			return change;
+		}
+		// spread the elements evenly over as few nodes as hold them
+		int pieces = (j + nodeSize - 1) / nodeSize;
+		Node current = n;
+		int index = 0;
+		for (int c = 0; c < pieces; c++) {
+			int len = j / pieces + (c < j % pieces ? 1 : 0);
+			Node m = c == 0 ? n : new Node();
+			m.own();
+			System.arraycopy(out, index, m.data, 0, len);
+			Arrays.fill(m.data, len, m.data.length, null);
+			m.start = 0;
+			if (c == 0) {
+				n.reweigh(len - n.count);
+				n.count = len;
+			} else {
+				m.count = len;
+				link(current, m);
+				current = m;
+				if (listener != null)
+					listener.nodeSplit();
+			}
+			if (members != null && c > 0) {
+				for (int t = 0; t < len; t++)
+					members.put(m.data[t], m);
+			}
+			index += len;
+		}
+		Arrays.fill(out, 0, j, null);
+		if (j < nodeSize / 2)
+			underfull.add(n);
+		return change;
+	}
+
+	/**
+	 * Applies a single batch operation to node n in place, as the positional
+	 * methods do, if that needs no split or unlink. For the common sparse batch
+	 * this is cheaper than copying the whole node in rewrite().
+	 * 
+	 * @param n node the operation falls within
+	 * @param offset offset of the operation within n
+	 * @param kind kind of the operation
+	 * @param item item inserted or replacing, null for a remove
+	 * @param underfull receives n if it ends up less than half full
+	 * @return true if the operation was applied, false otherwise
+	 */
+	private boolean editInPlace(Node n, int offset, byte kind, E item, ArrayList<Node> underfull) {
+		if (kind == MutationBatch.INSERT) {
+			if (n.count == nodeSize)
+				return false;
+			n.addItem(offset, item);
+			size++;
+		} else if (kind == MutationBatch.REMOVE) {
+			if (n.count == 1)
+				return false;
+			if (members != null)
+				members.remove(n.item(offset), n);
+			n.removeItem(offset);
+			size--;
+			if (n.count < nodeSize / 2)
+				underfull.add(n);
+			return true;
+		} else {
+			if (members != null)
+				members.remove(n.item(offset), n);
+			n.own();
+			n.setItem(offset, item);
+		}
+		if (members != null)
+			members.put(item, n);
+		return true;
+	}
+
+	/**
+	 * Writes the list to channel: a header holding the element width and size,
+	 * then one block per node, made of the node's count followed by its
+	 * elements encoded with codec. Blocks are gathered in a pooled direct
+	 * buffer, so memory use does not depend on the size of the list.
+	 * 
+	 * @param channel channel to write to
+	 * @param codec encoding of the elements
+	 * @throws IOException if writing to channel fails
+	 */
+	public void writeTo(WritableByteChannel channel, ElementCodec<? super E> codec) throws IOException {
+		int width = codec.width();
+		int expectedModCount = modCount;
+		ByteBuffer buffer = DirectBufferPool.acquire(STREAM_HEADER + Integer.BYTES + nodeSize * width);
+		try {
+			buffer.putInt(STREAM_MAGIC).putInt(STREAM_VERSION).putInt(width).putInt(size);
+			for (Node n = head.next; n != tail; n = n.next) {
+				if (buffer.remaining() < Integer.BYTES + n.count * width)
+					drain(channel, buffer);
+				buffer.putInt(n.count);
+				int index = buffer.position();
+				for (int i = 0; i < n.count; i++, index += width)
+					codec.write(buffer, index, n.item(i));
+				buffer.position(index);
+			}
+			drain(channel, buffer);
+		} finally {
+			DirectBufferPool.release(buffer);
+		}
+		if (modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * Appends the elements of a stream written by writeTo() to the list, one
+	 * node at a time. The last node is topped up and the rest are filled to
+	 * nodeSize, whatever node size the writer used. Elements are not checked
+	 * against the list with contains(); like addAll(int, Collection), duplicates
+	 * are only rejected when the uniqueness index is present. Memory use beyond
+	 * the list itself is one pooled buffer.
+	 * 
+	 * If the stream turns out to be malformed, the elements read before the
+	 * problem was found stay in the list.
+	 * 
+	 * @param channel channel to read from
+	 * @param codec encoding of the elements, of the width the stream was
+	 *        written with
+	 * @throws IOException if reading fails or the stream is malformed
+	 */
+	public void readFrom(ReadableByteChannel channel, ElementCodec<? extends E> codec) throws IOException {
+		int width = codec.width();
+		ByteBuffer buffer = DirectBufferPool.acquire(STREAM_HEADER + Integer.BYTES + width);
+		Node n = tail.previous;
+		if (n == head || n.count == nodeSize)
+			n = new Node();
+		try {
+			buffer.limit(0);
+			fill(channel, buffer, STREAM_HEADER);
+			if (buffer.getInt() != STREAM_MAGIC || buffer.getInt() != STREAM_VERSION)
+				throw new IOException("not a StoutList stream");
+			if (buffer.getInt() != width)
+				throw new IOException("stream holds elements of a different width");
+			int remaining = buffer.getInt();
+			if (remaining < 0)
+				throw new IOException("negative size in stream");
+			int block = 0;
+			while (remaining > 0) {
+				if (block == 0) {
+					fill(channel, buffer, Integer.BYTES);
+					block = buffer.getInt();
+					if (block <= 0 || block > remaining)
+						throw new IOException("malformed block in stream");
+				}
+				fill(channel, buffer, width);
+				E item = codec.read(buffer, buffer.position());
+				buffer.position(buffer.position() + width);
+				if (item == null)
+					throw new NullPointerException();
+				checkUnique(item);
+				if (n.count == nodeSize) {
+					if (!n.indexed)
+						link(tail.previous, n);
+					n = new Node();
+				}
+				n.addItem(item);
+				size++;
+				block--;
+				remaining--;
+			}
+			if (block != 0)
+				throw new IOException("malformed block in stream");
+		} finally {
+			if (n.count > 0 && !n.indexed)
+				link(tail.previous, n);
+			modCount++;
+			DirectBufferPool.release(buffer);
+		}
+	}
+
+	/**
+	 * Writes out the bytes gathered in buffer and clears it.
+	 */
+	private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Reads from channel until buffer has at least need bytes remaining. buffer
+	 * is in read mode before and after.
+	 */
+	private static void fill(ReadableByteChannel channel, ByteBuffer buffer, int need) throws IOException {
+		if (buffer.remaining() >= need)
+			return;
+		buffer.compact();
+		while (buffer.position() < need) {
+			if (channel.read(buffer) < 0)
+				throw new EOFException();
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Returns an immutable snapshot of the current contents. The snapshot shares
+	 * the nodes' data arrays with the list; the list copies an array only when it
+	 * first modifies it after the snapshot (appending to a node needs no copy).
+	 * Taking a snapshot copies one array reference and count per node, O(n /
+	 * nodeSize), and no elements. The snapshot may be handed to other threads
+	 * and read while the list keeps being modified.
+	 * 
+	 * @return snapshot of the list
+	 */
+	public Snapshot<E> snapshot() {
+		int nodes = 0;
+		for (Node n = head.next; n != tail; n = n.next)
+			nodes++;
+		Object[][] chunks = new Object[nodes][];
+		int[] offsets = new int[nodes];
+		int[] starts = new int[nodes];
+		int i = 0;
+		int pos = 0;
+		for (Node n = head.next; n != tail; n = n.next) {
+			chunks[i] = n.data;
+			offsets[i] = n.start;
+			starts[i++] = pos;
+			pos += n.count;
+		}
+		snapshotEpoch++;
+		return new Snapshot<>(chunks, offsets, starts, size);
+	}
+
+	/**
+	 * Reverse-ordered view of a StoutList, returned by StoutList.reversed().
+	 * Every operation is forwarded to the list with the ends swapped: the view's
+	 * first element is the list's last, and its iterators walk the list
+	 * backwards.
+	 */
+	public static final class ReverseView<E extends Comparable<? super E>> extends AbstractSequentialList<E>
+			implements Deque<E> {
+		private final StoutList<E> list;
+
+		ReverseView(StoutList<E> list) {
+			this.list = list;
+		}
+
+		/**
+		 * @return the list this is a view of
+		 */
+		public StoutList<E> reversed() {
+			return list;
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return list.contains(o);
+		}
+
+		@Override
+		public boolean add(E item) {
+			list.addFirst(item);
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return list.removeLastOccurrence(o);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return list.descendingIterator();
+		}
+
+		@Override
+		public Iterator<E> descendingIterator() {
+			return list.iterator();
+		}
+
+		/**
+		 * Returns a list iterator over the view, backed by a list iterator over the
+		 * list that moves the other way. A cursor before view position i is a
+		 * cursor before list position size() - i.
+		 */
+		@Override
+		public ListIterator<E> listIterator(int pos) {
+			if (pos < 0 || pos > list.size())
+				throw new IndexOutOfBoundsException();
+			ListIterator<E> iter = list.listIterator(list.size() - pos);
+			return new ListIterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return iter.hasPrevious();
+				}
+
+				@Override
+				public E next() {
+					return iter.previous();
+				}
+
+				@Override
+				public boolean hasPrevious() {
+					return iter.hasNext();
+				}
+
+				@Override
+				public E previous() {
+					return iter.next();
+				}
+
+				@Override
+				public int nextIndex() {
+					return list.size() - iter.nextIndex();
+				}
+
+				@Override
+				public int previousIndex() {
+					return nextIndex() - 1;
+				}
+
+				@Override
+				public void remove() {
+					iter.remove();
+				}
+
+				@Override
+				public void set(E item) {
+					iter.set(item);
+				}
+
+				@Override
+				public void add(E item) {
+					// the new element must be returned by previous() on the view,
+					// which is next() on the list
+					iter.add(item);
+					iter.previous();
+				}
+			};
+		}
+
+		@Override
+		public void addFirst(E item) {
+			list.addLast(item);
+		}
+
+		@Override
+		public void addLast(E item) {
+			list.addFirst(item);
+		}
+
+		@Override
+		public boolean offerFirst(E item) {
+			return list.offerLast(item);
+		}
+
+		@Override
+		public boolean offerLast(E item) {
+			return list.offerFirst(item);
+		}
+
+		@Override
+		public E removeFirst() {
+			return list.removeLast();
+		}
+
+		@Override
+		public E removeLast() {
+			return list.removeFirst();
+		}
+
+		@Override
+		public E pollFirst() {
+			return list.pollLast();
+		}
+
+		@Override
+		public E pollLast() {
+			return list.pollFirst();
+		}
+
+		@Override
+		public E getFirst() {
+			return list.getLast();
+		}
+
+		@Override
+		public E getLast() {
+			return list.getFirst();
+		}
+
+		@Override
+		public E peekFirst() {
+			return list.peekLast();
+		}
+
+		@Override
+		public E peekLast() {
+			return list.peekFirst();
+		}
+
+		@Override
+		public boolean removeFirstOccurrence(Object o) {
+			return list.removeLastOccurrence(o);
+		}
+
+		@Override
+		public boolean removeLastOccurrence(Object o) {
+			return list.removeFirstOccurrence(o);
+		}
+
+		@Override
+		public boolean offer(E item) {
+			return offerLast(item);
+		}
+
+		@Override
+		public E remove() {
+			return removeFirst();
+		}
+
+		@Override
+		public E poll() {
+			return pollFirst();
+		}
+
+		@Override
+		public E element() {
+			return getFirst();
+		}
+
+		@Override
+		public E peek() {
+			return peekFirst();
+		}
+
+		@Override
+		public void push(E item) {
+			addFirst(item);
+		}
+
+		@Override
+		public E pop() {
+			return removeFirst();
+		}
+	}
+
+	/**
+	 * Positional changes to be applied to a StoutList in one pass by
+	 * StoutList.apply(). Operations must be added in order of position, where
+	 * positions refer to the list before the batch: insert(p, x) puts x before
+	 * the element at p (p may equal the size, to append), and set(p, x) and
+	 * remove(p) act on the element at p. At one position, any inserts come
+	 * first, followed by at most one set or remove. A batch can be applied to
+	 * several lists and reused after clear().
+	 */
+	public static final class MutationBatch<E extends Comparable<? super E>> {
+		static final byte INSERT = 0;
+		static final byte SET = 1;
+		static final byte REMOVE = 2;
+
+		int[] positions = new int[16];
+		byte[] kinds = new byte[16];
+		E[] items = (E[]) new Comparable[16];
+		int count;
+
+		/**
+		 * Adds an insertion of item before the element at pos.
+		 * 
+		 * @param pos position in the list before the batch, at most its size
+		 * @param item item to be inserted
+		 * @return this batch
+		 */
+		public MutationBatch<E> insert(int pos, E item) {
+			append(pos, INSERT, item);
+			return this;
+		}
+
+		/**
+		 * Adds a replacement of the element at pos by item.
+		 * 
+		 * @param pos position in the list before the batch
+		 * @param item replacing item
+		 * @return this batch
+		 */
+		public MutationBatch<E> set(int pos, E item) {
+			append(pos, SET, item);
+			return this;
+		}
+
+		/**
+		 * Adds a removal of the element at pos.
+		 * 
+		 * @param pos position in the list before the batch
+		 * @return this batch
+		 */
+		public MutationBatch<E> remove(int pos) {
+			append(pos, REMOVE, null);
+			return this;
+		}
+
+		/**
+		 * @return number of operations in the batch
+		 */
+		public int size() {
+			return count;
+		}
+
+		/**
+		 * Removes all operations from the batch.
+		 */
+		public void clear() {
+			Arrays.fill(items, 0, count, null);
+			count = 0;
+		}
+
+		private void append(int pos, byte kind, E item) {
+			if (kind != REMOVE && item == null)
+				throw new NullPointerException();
+			if (pos < 0)
+				throw new IndexOutOfBoundsException();
+			if (count > 0) {
+				int prev = positions[count - 1];
+				if (pos < prev)
+					throw new IllegalArgumentException("operations must be in order of position");
+				if (pos == prev && kinds[count - 1] != INSERT)
+					throw new IllegalArgumentException("position " + pos + " is already set or removed");
+			}
+			if (count == positions.length) {
+				positions = Arrays.copyOf(positions, count * 2);
+				kinds = Arrays.copyOf(kinds, count * 2);
+				items = Arrays.copyOf(items, count * 2);
+			}
+			positions[count] = pos;
+			kinds[count] = kind;
+			items[count] = item;
+			count++;
 		}
 	}
 
 	/**
-	 * Sort all elements in the stout list in the NON-DECREASING order. You may do
-	 * the following. Traverse the list and copy its elements into an array,
-	 * deleting every visited node along the way. Then, sort the array by calling
-	 * the insertionSort() method. (Note that sorting efficiency is not a concern
-	 * for this project.) Finally, copy all elements from the array back to the
-	 * stout list, creating new nodes for storage. After sorting, all nodes but
-	 * (possibly) the last one must be full of elements.
-	 * 
-	 * Comparator<E> must have been implemented for calling insertionSort().
+	 * Immutable view of a StoutList at the time snapshot() was called. Positional
+	 * access binary searches the node start positions, O(log(n / nodeSize)).
 	 */
-	public void sort() {
-		E[] sortDataList = (E[]) new Comparable[size];
+	public static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+		/**
+		 * data arrays of the nodes, shared with the list
+		 */
+		private final Object[][] chunks;
 
-		int tempIndex = 0;
-		Node temp = head.next;
-		while (temp != tail) {
-			for (int i = 0; i < temp.count; i++) {
-				sortDataList[tempIndex] = temp.data[i];
-				tempIndex++;
-			}
-			temp = temp.next;
-		}
+		/**
+		 * slot of the first element in each chunk
+		 */
+		private final int[] offsets;
 
-		head.next = tail;
-		tail.previous = head;
+		/**
+		 * position of the first element of each chunk
+		 */
+		private final int[] starts;
 
-		insertionSort(sortDataList, new InsertionComparator());
-		size = 0;
-		for (int i = 0; i < sortDataList.length; i++) {
-			add(sortDataList[i]);
-		}
+		private final int size;
 
-	}
-	
+		private Snapshot(Object[][] chunks, int[] offsets, int[] starts, int size) {
+			this.chunks = chunks;
+			this.offsets = offsets;
+			this.starts = starts;
+			this.size = size;
+		}
 
-	/**
-	 * Sort all elements in the stout list in the NON-INCREASING order. Call the
-	 * bubbleSort() method. After sorting, all but (possibly) the last nodes must be
-	 * filled with elements.
-	 * 
-	 * Comparable<? super E> must be implemented for calling bubbleSort().
-	 */
-	public void sortReverse() {
-		E[] rsortDataList = (E[]) new Comparable[size];
+		@Override
+		public int size() {
+			return size;
+		}
 
-		int tempIndex = 0;
-		Node temp = head.next;
-		while (temp != tail) {
-			for (int i = 0; i < temp.count; i++) {
-				rsortDataList[tempIndex] = temp.data[i];
-				tempIndex++;
-			}
-			temp = temp.next;
+		@Override
+		public E get(int pos) {
+			if (pos < 0 || pos >= size)
+				throw new IndexOutOfBoundsException();
+			int i = Arrays.binarySearch(starts, pos);
+			if (i < 0)
+				i = -i - 2;
+			return (E) chunks[i][offsets[i] + pos - starts[i]];
 		}
 
-		head.next = tail;
-		tail.previous = head;
+		@Override
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				int chunk;
+				int offset;
+				int position;
+
+				@Override
+				public boolean hasNext() {
+					return position < size;
+				}
 
-		bubbleSort(rsortDataList);
-		size = 0;
-		for (int i = 0; i < rsortDataList.length; i++) {
-			add(rsortDataList[i]);
+				@Override
+				public E next() {
+					if (position >= size)
+						throw new NoSuchElementException();
+					int end = chunk + 1 < starts.length ? starts[chunk + 1] : size;
+					if (starts[chunk] + offset == end) {
+						chunk++;
+						offset = 0;
+					}
+					position++;
+					return (E) chunks[chunk][offsets[chunk] + offset++];
+				}
+			};
 		}
-		
 	}
 
 	@Override
@@ -372,6 +2134,11 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		return new StoutListIterator(index);
 	}
 
+	@Override
+	public Spliterator<E> spliterator() {
+		return new StoutListSpliterator(0, size);
+	}
+
 	/**
 	 * Returns a string representation of this list showing the internal structure
 	 * of the nodes.
@@ -398,7 +2165,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		Node current = head.next;
 		while (current != tail) {
 			sb.append('(');
-			E data = current.data[0];
+			E data = current.count > 0 ? current.item(0) : null;
 			if (data == null) {
 				sb.append("-");
 			} else {
@@ -412,7 +2179,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
 			for (int i = 1; i < nodeSize; ++i) {
 				sb.append(", ");
-				data = current.data[i];
+				data = i < current.count ? current.item(i) : null;
 				if (data == null) {
 					sb.append("-");
 				} else {
@@ -443,32 +2210,61 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	 * Node type for this list. Each node holds a maximum of nodeSize elements in an
 	 * array. Empty slots are null.
 	 */
-	private class Node {
+	private class Node extends IndexedNode<Node> {
 		/**
 		 * Array of actual data elements.
 		 */
 		// Unchecked warning unavoidable.
-		public E[] data = (E[]) new Comparable[nodeSize];
+		public E[] data = newData();
+
+		/**
+		 * Slot of data holding the element at offset 0. The elements occupy
+		 * data[start, start + count), so an edit can shift whichever side of the
+		 * node is shorter and removing the first element shifts nothing.
+		 */
+		int start;
+
+		/**
+		 * Snapshot epoch in which data was created. If it is older than the list's
+		 * epoch, data may be shared with a snapshot.
+		 */
+		int owner = snapshotEpoch;
 
 		/**
-		 * Link to next node.
+		 * Copies data if it may be shared with a snapshot, so that it can be
+		 * modified. Appending at count needs no copy, since snapshots only see
+		 * the slots below the count they captured and count never drops without
+		 * a copy.
 		 */
-		public Node next;
+		void own() {
+			if (owner != snapshotEpoch) {
+				data = data.clone();
+				owner = snapshotEpoch;
+			}
+		}
 
 		/**
-		 * Link to previous node;
+		 * @param offset offset of the element within this node
+		 * @return element at offset
 		 */
-		public Node previous;
+		E item(int offset) {
+			return data[start + offset];
+		}
 
 		/**
-		 * Index of the next available offset in this node, also equal to the number of
-		 * elements in this node.
+		 * Overwrites the element at offset. The caller must have called own().
+		 * 
+		 * @param offset offset of the element within this node
+		 * @param item   replacing element
 		 */
-		public int count;
+		void setItem(int offset, E item) {
+			data[start + offset] = item;
+		}
 
 		/**
-		 * Adds an item to this node at the first available offset. Precondition: count
-		 * < nodeSize
+		 * Adds an item to this node at the first available offset, moving the
+		 * elements to the front of the array first if they end at its last slot.
+		 * Precondition: count < nodeSize
 		 * 
 		 * @param item element to be added
 		 */
@@ -476,122 +2272,414 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 			if (count >= nodeSize) {
 				return;
 			}
-			data[count++] = item;
+			if (start + count == data.length) {
+				own();
+				System.arraycopy(data, start, data, 0, count);
+				Arrays.fill(data, count, start + count, null);
+				start = 0;
+			}
+			data[start + count++] = item;
+			if (indexed)
+				reweigh(1);
+			if (members != null)
+				members.put(item, this);
 		}
 
 		/**
-		 * Adds an item to this node at the indicated offset, shifting elements to the
-		 * right as necessary.
+		 * Adds an item to this node at the indicated offset, shifting the elements
+		 * before it left or the ones after it right, whichever are fewer and have
+		 * room to move.
 		 * 
 		 * Precondition: count < nodeSize
 		 * 
-		 * @param offset array index at which to put the new element
+		 * @param offset offset at which to put the new element
 		 * @param item   element to be added
 		 */
 		void addItem(int offset, E item) {
 			if (count >= nodeSize) {
 				return;
 			}
-			for (int i = count - 1; i >= offset; --i) {
-				data[i + 1] = data[i];
+			own();
+			if (start > 0 && (offset < count - offset || start + count == data.length)) {
+				System.arraycopy(data, start, data, start - 1, offset);
+				start--;
+			} else {
+				System.arraycopy(data, start + offset, data, start + offset + 1, count - offset);
 			}
 			++count;
-			data[offset] = item;
+			data[start + offset] = item;
+			if (indexed)
+				reweigh(1);
+			if (members != null)
+				members.put(item, this);
 		}
 
 		/**
-		 * Deletes an element from this node at the indicated offset, shifting elements
-		 * left as necessary. Precondition: 0 <= offset < count
+		 * Deletes an element from this node at the indicated offset, closing the gap
+		 * from whichever side holds fewer elements. Precondition: 0 <= offset <
+		 * count
 		 * 
 		 * @param offset
 		 */
 		void removeItem(int offset) {
-			E item = data[offset];
-			for (int i = offset + 1; i < nodeSize; ++i) {
-				data[i - 1] = data[i];
+			own();
+			E item = data[start + offset];
+			if (offset < count - offset - 1) {
+				System.arraycopy(data, start, data, start + 1, offset);
+				data[start++] = null;
+			} else {
+				System.arraycopy(data, start + offset + 1, data, start + offset, count - offset - 1);
+				data[start + count - 1] = null;
+			}
+			if (--count == 0)
+				start = 0;
+			if (indexed)
+				reweigh(-1);
+			// the item may already have been moved to another node
+			if (members != null)
+				members.remove(item, this);
+		}
+
+		/**
+		 * Deletes the elements at offsets [from, to) from this node, closing the gap
+		 * from whichever side holds fewer elements. Precondition: 0 <= from <= to
+		 * <= count
+		 * 
+		 * @param from first offset to be deleted
+		 * @param to   one past the last offset to be deleted
+		 */
+		void removeRange(int from, int to) {
+			own();
+			int removed = to - from;
+			if (members != null) {
+				for (int i = from; i < to; i++)
+					members.remove(data[start + i], this);
+			}
+			if (from < count - to) {
+				System.arraycopy(data, start, data, start + removed, from);
+				Arrays.fill(data, start, start + removed, null);
+				start += removed;
+			} else {
+				System.arraycopy(data, start + to, data, start + from, count - to);
+				Arrays.fill(data, start + count - removed, start + count, null);
 			}
-			data[count - 1] = null;
-			--count;
+			count -= removed;
+			if (count == 0)
+				start = 0;
+			if (indexed)
+				reweigh(-removed);
 		}
 	}
 	
 	/**
-	 * Helper class that represents a node and offset.
+	 * Helper class that represents a node and offset. Only used where a lookup
+	 * may run concurrently with other readers and so cannot report through
+	 * foundOffset; positional operations allocate nothing.
 	 */
 	private class NodeInfo {
 		public Node node;
 		public int offset;
-		public E item;
 
 		public NodeInfo(Node targetNode, int offset) {
 			this.node = targetNode;
 			this.offset = offset;
 		}
+	}
 
-		public NodeInfo(Node targetNode, int offset, E item) {
-			this.node = targetNode;
-			this.offset = offset;
-			this.item = item;
+	/**
+	 * Finds the node the position is located at and leaves the offset within it in
+	 * foundOffset. A position equal to size maps to offset 0 of the tail dummy
+	 * node. Since it writes a field, only code that modifies the list may use it;
+	 * lookups that may run alongside other readers use find(int, int).
+	 * 
+	 * @param pos position item is at
+	 * @return node pos is in
+	 */
+	private Node find(int pos) {
+		if (pos == size) {
+			foundOffset = 0;
+			return tail;
 		}
+		Node n = index.find(pos);
+		if (listener != null)
+			listener.positionFound(index.steps);
+		foundOffset = index.offset;
+		return n;
 	}
 
 	/**
-	 * Finds the node and offset the position is located at.
+	 * Finds the node and offset the position is located at, giving up after
+	 * maxSteps steps down the position index.
 	 * 
 	 * @param pos position item is at
-	 * @return NodeInfo contains target node and offset pos is at
+	 * @param maxSteps maximum number of index nodes to visit
+	 * @return NodeInfo contains target node and offset pos is at, or null if the
+	 *         search gave up
 	 */
-	private NodeInfo find(int pos) {
-		Node target = null;
-		Node current = head.next;
-		int prevCount = 0;
-		int currCount = current.count;
-		int offset = 0;
-		
-		while (target == null) {
-			// edge case: at first node
-			if (currCount == pos && current.next == tail) {
-				target = current;
-				offset = pos - prevCount;
-			}
-			// first case: pos is within node
-			else if (prevCount - 1 < pos && pos <= currCount - 1) {
-				target = current;
-				offset = pos - prevCount;
-			// second case: pos is not within node
+	private NodeInfo find(int pos, int maxSteps) {
+		if (pos == size)
+			return new NodeInfo(tail, 0);
+		Node current = index.root;
+		for (int steps = 0; steps < maxSteps; steps++) {
+			int leftWeight = current.left == null ? 0 : current.left.weight;
+			if (pos < leftWeight) {
+				current = current.left;
+			} else if (pos - leftWeight < current.count) {
+				return new NodeInfo(current, pos - leftWeight);
 			} else {
-				prevCount += current.count;
-				current = current.next;
-				currCount += current.count;
+				pos -= leftWeight + current.count;
+				current = current.right;
 			}
 		}
-		
-		NodeInfo node = new NodeInfo(target, offset);
-		return node;
+		return null;
 	}
 
 	/**
-	 * Adds item at the given node and offset.
+	 * Returns the item at pos like get(), but gives up after maxSteps steps down
+	 * the position index. Meant for readers that run without excluding writers
+	 * and validate the result afterwards, such as OptimisticStoutList: a racing
+	 * writer may make this return a wrong item, return null or throw, but never
+	 * loop forever.
 	 * 
-	 * @param node node item is at
-	 * @param offset offset item is at
+	 * @param pos position of the item
+	 * @param maxSteps maximum number of index nodes to visit
+	 * @return E item at the given position, or null if the search gave up
+	 */
+	E readItem(int pos, int maxSteps) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		Node current = index.root;
+		for (int steps = 0; steps < maxSteps; steps++) {
+			int leftWeight = current.left == null ? 0 : current.left.weight;
+			if (pos < leftWeight) {
+				current = current.left;
+			} else if (pos - leftWeight < current.count) {
+				if (listener != null)
+					listener.positionFound(steps + 1);
+				return current.item(pos - leftWeight);
+			} else {
+				pos -= leftWeight + current.count;
+				current = current.right;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Copies the items from pos to the end of its node into buffer, as far as
+	 * buffer allows. The same caveats as for readItem() apply.
+	 * 
+	 * @param pos position of the first item
+	 * @param buffer array receiving the items
+	 * @param maxSteps maximum number of index nodes to visit
+	 * @return number of items copied, or -1 if the search gave up
+	 */
+	int readChunk(int pos, E[] buffer, int maxSteps) {
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		NodeInfo nodeInfo = find(pos, maxSteps);
+		if (nodeInfo == null)
+			return -1;
+		int k = Math.min(nodeInfo.node.count - nodeInfo.offset, buffer.length);
+		System.arraycopy(nodeInfo.node.data, nodeInfo.node.start + nodeInfo.offset, buffer, 0, k);
+		return k;
+	}
+
+	/**
+	 * Returns the number of items less than key, or less than or equal to key if
+	 * inclusive, assuming the list is in non-decreasing order. In a sorted list
+	 * the position index is also a search tree over the nodes, so each step
+	 * compares key with the first and last item of one node, and the node holding
+	 * the boundary is binary searched. Used by SortedStoutList.
+	 *
+	 * @param key item to compare against
+	 * @param inclusive whether items equal to key are counted
+	 * @return position of the first item greater than (or equal to, if not
+	 *         inclusive) key, or size if there is none
+	 */
+	int search(E key, boolean inclusive) {
+		int pos = 0;
+		Node current = index.root;
+		while (current != null) {
+			int leftWeight = current.left == null ? 0 : current.left.weight;
+			if (!precedes(current.item(0), key, inclusive)) {
+				current = current.left;
+			} else if (precedes(current.item(current.count - 1), key, inclusive)) {
+				pos += leftWeight + current.count;
+				current = current.right;
+			} else {
+				// the boundary lies between the first and the last item
+				int lo = 1;
+				int hi = current.count - 1;
+				while (lo < hi) {
+					int mid = (lo + hi) >>> 1;
+					if (precedes(current.item(mid), key, inclusive))
+						lo = mid + 1;
+					else
+						hi = mid;
+				}
+				return pos + leftWeight + lo;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * @return whether item comes before the boundary search() looks for
+	 */
+	private static <E extends Comparable<? super E>> boolean precedes(E item, E key, boolean inclusive) {
+		int c = item.compareTo(key);
+		return inclusive ? c <= 0 : c < 0;
+	}
+
+	/**
+	 * Links node n into the list directly after prev, which may be head.
+	 * 
+	 * @param prev node to link after
+	 * @param n node to be linked
+	 */
+	private void link(Node prev, Node n) {
+		n.next = prev.next;
+		n.previous = prev;
+		prev.next.previous = n;
+		prev.next = n;
+		index.insert(prev, n);
+	}
+
+	/**
+	 * Unlinks node n from the list.
+	 * 
+	 * @param n node to be unlinked
+	 */
+	private void unlink(Node n) {
+		n.previous.next = n.next;
+		n.next.previous = n.previous;
+		index.remove(n);
+		recycle(n);
+	}
+
+	/**
+	 * Adds item at the given node and offset, splitting the node if it is full.
+	 * The offset the item ended up at is left in foundOffset.
+	 * 
+	 * @param target node item is to be added to, or tail to append
+	 * @param offset offset item is to be added at
 	 * @param item item to be added
-	 * @return NodeInfo contains new item at given node and offset
+	 * @return node the new item ended up in
 	 */
-	private NodeInfo add(Node node, int offset, E item) {
-		node.data[offset] = item;
-		NodeInfo n = new NodeInfo(node, offset, item);
-		return n;
+	private Node add(Node target, int offset, E item) {
+		checkUnique(item);
+		Node placed;
+		// if it is an empty list
+		if (head.next == tail) {
+			Node n = new Node();
+			n.addItem(item);
+			link(head, n);
+			placed = n;
+			foundOffset = 0;
+		}
+		// if offset is zero and the predecessor has room, put the item there
+		else if (offset == 0 && target.previous != head && target.previous.count < nodeSize) {
+			target.previous.addItem(item);
+			placed = target.previous;
+			foundOffset = target.previous.count - 1;
+		}
+		// appending past a full last node starts a new node
+		else if (target == tail) {
+			Node n = new Node();
+			n.addItem(item);
+			link(tail.previous, n);
+			placed = n;
+			foundOffset = 0;
+		} else if (target.count < nodeSize) {
+			target.addItem(offset, item);
+			placed = target;
+			foundOffset = offset;
+		// perform a split operation
+		} else {
+			// move the last half of target into a new node
+			Node n = new Node();
+			for (int i = nodeSize / 2; i < nodeSize; i++) {
+				n.addItem(target.item(i));
+			}
+			target.removeRange(nodeSize / 2, nodeSize);
+			link(target, n);
+			if (listener != null)
+				listener.nodeSplit();
+
+			if (offset <= nodeSize / 2) {
+				target.addItem(offset, item);
+				placed = target;
+				foundOffset = offset;
+			} else {
+				n.addItem(offset - (nodeSize / 2), item);
+				placed = n;
+				foundOffset = offset - (nodeSize / 2);
+			}
+		}
+		size++;
+		modCount++;
+		return placed;
 	}
 
 	/**
-	 * A singly linked iterator to help fully develop
-	 * doubly linked iterator for StoutList.
+	 * Removes the item at the given node and offset, merging with the successor
+	 * if the node drops below half full. The item that followed the removed one
+	 * is afterwards found at the same node and offset, or at the start of the
+	 * following node if temp was unlinked or the offset is past its count.
+	 * 
+	 * @param temp node item is at
+	 * @param offset offset item is at
+	 * @return E item removed from list
 	 */
-	
-	
+	private E remove(Node temp, int offset) {
+		E nodeValue = temp.item(offset);
+
+		// if the node n containing X is the last node and has only one element, delete it
+		if (temp.next == tail && temp.count == 1) {
+			temp.removeItem(offset);
+			unlink(temp);
+		}
+		// otherwise, if n is the last node (thus with two or more elements),
+		// or if n has more than M/2 elements, remove X from n, shifting elements as necessary; 
+		else if (temp.next == tail || temp.count > nodeSize / 2) {
+			temp.removeItem(offset);
+		}
+		// otherwise (the node n must have at most  elements), look at its successor n'
+		// (note that we don�t look at the predecessor of n) and perform a merge operation as follows: 
+		else {
+			temp.removeItem(offset);
+			Node succesor = temp.next;
+			
+			// if the successor node n' has more than  elements, move the first element from n' to n. (mini-merge) 
+			if (succesor.count > nodeSize / 2) {
+				temp.addItem(succesor.item(0));
+				succesor.removeItem(0);
+				if (listener != null)
+					listener.elementsBorrowed();
+			}
+			// if the successor node n' has  or fewer elements, then move all elements from n' to n and delete n' (full merge) 
+			else {
+				for (int i = 0; i < succesor.count; i++) {
+					temp.addItem(succesor.item(i));
+				}
+				unlink(succesor);
+				if (listener != null)
+					listener.nodesMerged();
+			}
+		}
+		// decrease the size of list, since item has been removed
+		size--;
+		modCount++;
+		return nodeValue;
+	}
+
 	/**
-	 * Doubly linked list iterator for StoutList.
+	 * Doubly linked list iterator for StoutList. The iterator keeps a cursor
+	 * (node, offset) on the element that next() would return and edits the nodes
+	 * in place, so each operation does O(1) amortized work. It is fail-fast: a
+	 * structural change made other than through the iterator causes the next
+	 * operation to throw ConcurrentModificationException.
 	 */
 	private class StoutListIterator implements ListIterator<E> {
 		final int LAST_ACTION_PREV = 0;
@@ -601,11 +2689,22 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 * pointer of iterator
 		 */
 		int currentPosition;
-		
+
+		/**
+		 * node holding the element at currentPosition, tail at the end of the list
+		 */
+		Node cursorNode;
+
+		/**
+		 * offset of the element at currentPosition within cursorNode
+		 */
+		int cursorOffset;
+
 		/**
-		 * data structure of iterator in array form
+		 * node and offset of the element last returned by next() or previous()
 		 */
-		public E[] dataList;
+		Node lastNode;
+		int lastOffset;
 		
 		/**
 		 * tracks the lastAction taken by the program
@@ -614,14 +2713,17 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		int lastAction;
 
+		/**
+		 * modCount of the list this iterator expects
+		 */
+		int expectedModCount;
+
 		/**
 		 * Default constructor
 		 * Sets the pointer of iterator to the beginning of the list
 		 */
 		public StoutListIterator() {
-			currentPosition = 0;
-			lastAction = -1;
-			setup();
+			this(0);
 		}
 
 		/**
@@ -631,38 +2733,42 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 * @param pos
 		 */
 		public StoutListIterator(int pos) {
-			// TODO
+			if (pos < 0 || pos > size)
+				throw new IndexOutOfBoundsException();
+			NodeInfo nodeInfo = find(pos, Integer.MAX_VALUE);
+			cursorNode = nodeInfo.node;
+			cursorOffset = nodeInfo.offset;
 			currentPosition = pos;
 			lastAction = -1;
-			setup();
+			expectedModCount = modCount;
 		}
 
 		/**
-		 * Takes the StoutList and put its data into dataList in an array form
+		 * Moves the cursor to the start of the next node if it has run past the
+		 * last element of its node.
 		 */
-		private void setup() {
-			dataList = (E[]) new Comparable[size];
-
-			int tempIndex = 0;
-			Node temp = head.next;
-			while (temp != tail) {
-				for (int i = 0; i < temp.count; i++) {
-					dataList[tempIndex] = temp.data[i];
-					tempIndex++;
-				}
-				temp = temp.next;
+		private void normalize() {
+			if (cursorNode != tail && cursorOffset >= cursorNode.count) {
+				cursorNode = cursorNode.next;
+				cursorOffset = 0;
 			}
 		}
 
+		/**
+		 * Throws ConcurrentModificationException if the list was structurally
+		 * modified other than through this iterator.
+		 */
+		private void checkForComodification() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+
 		/**
 		 * @return whether iterator has next available value or not
 		 */
 		@Override
 		public boolean hasNext() {
-			if (currentPosition >= size)
-				return false;
-			else
-				return true;
+			return currentPosition < size;
 		}
 
 		/**
@@ -672,10 +2778,18 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public E next() {
+			checkForComodification();
 			if (!hasNext())
 				throw new NoSuchElementException();
 			lastAction = LAST_ACTION_NEXT;
-			return dataList[currentPosition++];
+			if (adaptive)
+				reads++;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+			cursorOffset++;
+			currentPosition++;
+			normalize();
+			return lastNode.item(lastOffset);
 		}
 
 		/**
@@ -685,21 +2799,28 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public void remove() {
-			// TODO
+			checkForComodification();
 			if (lastAction == LAST_ACTION_NEXT) {
-				StoutList.this.remove(currentPosition - 1);
-				setup();
-				lastAction = -1;
 				currentPosition--;
-				if (currentPosition < 0)
-					currentPosition = 0;
-			} else if (lastAction == LAST_ACTION_PREV) {
-				StoutList.this.remove(currentPosition);
-				setup();
-				lastAction = -1;
-			} else {
+			} else if (lastAction != LAST_ACTION_PREV) {
 				throw new IllegalStateException();
 			}
+			if (adaptive)
+				edits++;
+			Node following = lastNode.next;
+			StoutList.this.remove(lastNode, lastOffset);
+			// the element after the removed one now sits at the removed slot,
+			// unless its node was unlinked
+			if (lastNode.indexed) {
+				cursorNode = lastNode;
+				cursorOffset = lastOffset;
+				normalize();
+			} else {
+				cursorNode = following;
+				cursorOffset = 0;
+			}
+			expectedModCount = modCount;
+			lastAction = -1;
 		}
 
 		/**
@@ -707,11 +2828,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public boolean hasPrevious() {
-			// TODO Auto-generated method stub
-			if (currentPosition <= 0)
-				return false;
-			else
-				return true;
+			return currentPosition > 0;
 		}
 
 		/**
@@ -719,7 +2836,6 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public int nextIndex() {
-			// TODO Auto-generated method stub
 			return currentPosition;
 		}
 		
@@ -730,12 +2846,21 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public E previous() {
-			// TODO Auto-generated method stub
+			checkForComodification();
 			if (!hasPrevious())
 				throw new NoSuchElementException();
-			lastAction = LAST_ACTION_PREV;
+			if (cursorOffset == 0) {
+				cursorNode = cursorNode.previous;
+				cursorOffset = cursorNode.count;
+			}
+			cursorOffset--;
 			currentPosition--;
-			return dataList[currentPosition];
+			lastAction = LAST_ACTION_PREV;
+			if (adaptive)
+				reads++;
+			lastNode = cursorNode;
+			lastOffset = cursorOffset;
+			return lastNode.item(lastOffset);
 		}
 
 		/**
@@ -743,89 +2868,165 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 		 */
 		@Override
 		public int previousIndex() {
-			// TODO Auto-generated method stub
 			return currentPosition - 1;
 		}
 
 		/**
-		 * Replaces the element at the current pointer
+		 * Replaces the element last returned by next() or previous()
 		 * 
 		 * @param arg0 replacing element
 		 */
 		@Override
 		public void set(E arg0) {
-			// TODO Auto-generated method stub
-			if (lastAction == LAST_ACTION_NEXT) {
-				NodeInfo nodeInfo = find(currentPosition - 1);
-				nodeInfo.node.data[nodeInfo.offset] = arg0;
-				dataList[currentPosition - 1] = arg0;
-			} else if (lastAction == LAST_ACTION_PREV) {
-				NodeInfo nodeInfo = find(currentPosition);
-				nodeInfo.node.data[nodeInfo.offset] = arg0;
-				dataList[currentPosition] = arg0;
-			} else {
+			if (arg0 == null)
+				throw new NullPointerException();
+			checkForComodification();
+			if (lastAction != LAST_ACTION_NEXT && lastAction != LAST_ACTION_PREV)
 				throw new IllegalStateException();
-			}
-
+			replace(lastNode, lastOffset, arg0);
 		}
 
 		/**
-		 * Adds an element to the end of the list
+		 * Adds an element before the element next() would return
 		 * 
 		 * @param arg0 adding element
 		 */
 		@Override
 		public void add(E arg0) {
-			// TODO Auto-generated method stub
 			if (arg0 == null)
 				throw new NullPointerException();
+			checkForComodification();
 
-			StoutList.this.add(currentPosition, arg0);
+			if (adaptive)
+				edits++;
+			cursorNode = StoutList.this.add(cursorNode, cursorOffset, arg0);
+			cursorOffset = foundOffset + 1;
+			normalize();
 			currentPosition++;
-			setup();
+			expectedModCount = modCount;
 			lastAction = -1;
-
 		}
 	}
 
 	/**
-	 * Sort an array arr[] using the insertion sort algorithm in the NON-DECREASING
-	 * order.
-	 * 
-	 * @param arr  array storing elements from the list
-	 * @param comp comparator used in sorting
+	 * Spliterator that reads the node arrays directly. It covers the positions
+	 * [origin, fence) and splits at node boundaries, using the position index to
+	 * locate the middle node, so both halves know their exact size.
 	 */
-	private void insertionSort(E[] arr, Comparator<? super E> comp) {
-		for (int i = 1; i < arr.length; i++) {
-			E key = arr[i];
-			int j = i - 1;
+	private class StoutListSpliterator implements Spliterator<E> {
+		/**
+		 * node and offset of the next element to be traversed
+		 */
+		Node current;
+		int offset;
+
+		/**
+		 * position of the next element and one past the last element covered
+		 */
+		int origin;
+		int fence;
+
+		/**
+		 * modCount of the list this spliterator expects
+		 */
+		final int expectedModCount;
+
+		/**
+		 * Creates a spliterator over the positions [origin, fence).
+		 * 
+		 * @param origin position of the first element
+		 * @param fence one past the position of the last element
+		 */
+		StoutListSpliterator(int origin, int fence) {
+			NodeInfo nodeInfo = find(origin, Integer.MAX_VALUE);
+			this.current = nodeInfo.node;
+			this.offset = nodeInfo.offset;
+			this.origin = origin;
+			this.fence = fence;
+			this.expectedModCount = modCount;
+		}
+
+		/**
+		 * Creates a spliterator starting at the given node and offset.
+		 */
+		StoutListSpliterator(Node current, int offset, int origin, int fence, int expectedModCount) {
+			this.current = current;
+			this.offset = offset;
+			this.origin = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
 
-			while (j >= 0 && comp.compare(arr[j], key) > 0) {
-				arr[j + 1] = arr[j];
-				j--;
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (action == null)
+				throw new NullPointerException();
+			if (origin >= fence)
+				return false;
+			E item = current.item(offset++);
+			origin++;
+			if (offset == current.count) {
+				current = current.next;
+				offset = 0;
 			}
-			arr[j + 1] = key;
+			action.accept(item);
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			return true;
 		}
-	}
 
-	/**
-	 * Sort arr[] using the bubble sort algorithm in the NON-INCREASING order. For a
-	 * description of bubble sort please refer to Section 6.1 in the project
-	 * description. You must use the compareTo() method from an implementation of
-	 * the Comparable interface by the class E or ? super E.
-	 * 
-	 * @param arr array holding elements from the list
-	 */
-	private void bubbleSort(E[] arr) {
-		int n = arr.length;
-		for (int i = 0; i < n - 1; i++) {
-			for (int j = 0; j < n - i - 1; j++) {
-				if (arr[j].compareTo(arr[j + 1]) < 0) {
-					E temp = arr[j];
-					arr[j] = arr[j + 1];
-					arr[j + 1] = temp;
-				}
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			if (action == null)
+				throw new NullPointerException();
+			Node n = current;
+			int i = offset;
+			int remaining = fence - origin;
+			while (remaining > 0) {
+				int end = Math.min(n.count, i + remaining);
+				remaining -= end - i;
+				for (; i < end; i++)
+					action.accept(n.item(i));
+				n = n.next;
+				i = 0;
+			}
+			origin = fence;
+			current = null;
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (fence - origin < 2)
+				return null;
+			NodeInfo mid = find(origin + (fence - origin) / 2, Integer.MAX_VALUE);
+			Node splitNode = mid.node;
+			int splitPos = origin + (fence - origin) / 2 - mid.offset;
+			// keep the prefix non-empty by moving to the next node boundary
+			if (splitPos <= origin) {
+				splitPos += splitNode.count;
+				splitNode = splitNode.next;
+				if (splitPos >= fence)
+					return null;
 			}
+			Spliterator<E> prefix = new StoutListSpliterator(current, offset, origin, splitPos, expectedModCount);
+			current = splitNode;
+			offset = 0;
+			origin = splitPos;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - origin;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.NONNULL;
 		}
 	}
 
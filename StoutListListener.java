@@ -0,0 +1,43 @@
+package edu.iastate.cs228;
+
+/**
+ * Receives structural events from a StoutList, for monitoring how the list
+ * behaves under load. Install one with StoutList.setListener(); with no
+ * listener installed the list only pays a null check per event.
+ *
+ * The methods are called synchronously from the list operation that caused
+ * the event, so they should be cheap. positionFound() may also be called from
+ * threads that only read the list, e.g. through OptimisticStoutList, so an
+ * implementation shared by such readers must be thread-safe.
+ */
+public interface StoutListListener
+{
+
+	/**
+	 * A full node was split in two to make room for an insertion.
+	 */
+	default void nodeSplit() {
+	}
+
+	/**
+	 * A node that fell below half full absorbed all elements of its successor,
+	 * which was unlinked.
+	 */
+	default void nodesMerged() {
+	}
+
+	/**
+	 * A node that fell below half full took elements from the front of its
+	 * successor (a mini-merge).
+	 */
+	default void elementsBorrowed() {
+	}
+
+	/**
+	 * A position was located through the position index.
+	 *
+	 * @param steps number of index nodes visited
+	 */
+	default void positionFound(int steps) {
+	}
+}
@@ -0,0 +1,92 @@
+package edu.iastate.cs228;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StoutListListener that counts events. Safe to share between threads and
+ * between lists. Combine with StoutList.statistics() for the node fill
+ * distribution and footprint.
+ */
+public class StoutListMetrics implements StoutListListener
+{
+
+	private final LongAdder splits = new LongAdder();
+	private final LongAdder merges = new LongAdder();
+	private final LongAdder borrows = new LongAdder();
+	private final LongAdder finds = new LongAdder();
+	private final LongAdder findSteps = new LongAdder();
+
+	@Override
+	public void nodeSplit() {
+		splits.increment();
+	}
+
+	@Override
+	public void nodesMerged() {
+		merges.increment();
+	}
+
+	@Override
+	public void elementsBorrowed() {
+		borrows.increment();
+	}
+
+	@Override
+	public void positionFound(int steps) {
+		finds.increment();
+		findSteps.add(steps);
+	}
+
+	/**
+	 * @return number of node splits
+	 */
+	public long getSplits() {
+		return splits.sum();
+	}
+
+	/**
+	 * @return number of full merges
+	 */
+	public long getMerges() {
+		return merges.sum();
+	}
+
+	/**
+	 * @return number of mini-merges
+	 */
+	public long getBorrows() {
+		return borrows.sum();
+	}
+
+	/**
+	 * @return number of position lookups
+	 */
+	public long getFinds() {
+		return finds.sum();
+	}
+
+	/**
+	 * @return average number of index nodes visited per position lookup
+	 */
+	public double getAverageFindSteps() {
+		long n = finds.sum();
+		return n == 0 ? 0 : (double) findSteps.sum() / n;
+	}
+
+	/**
+	 * Sets all counters back to zero.
+	 */
+	public void reset() {
+		splits.reset();
+		merges.reset();
+		borrows.reset();
+		finds.reset();
+		findSteps.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "splits=" + getSplits() + ", merges=" + getMerges() + ", borrows=" + getBorrows() + ", finds="
+				+ getFinds() + ", averageFindSteps=" + getAverageFindSteps();
+	}
+}
@@ -0,0 +1,204 @@
+package edu.iastate.cs228.bench;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * List operations measured for StoutList and the JDK baselines. Subclasses
+ * supply the list under test; the list is refilled with the same shuffled
+ * elements before every iteration so that all implementations see the same
+ * data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractListBenchmark {
+
+	/**
+	 * Number of elements in the list.
+	 */
+	@Param({ "1000", "100000" })
+	public int size;
+
+	/**
+	 * A permutation of 0 .. size - 1.
+	 */
+	protected Integer[] shuffled;
+
+	/**
+	 * List under test, holding size elements.
+	 */
+	protected List<Integer> list;
+
+	/**
+	 * Precomputed random positions in [0, size), cycled through by nextPosition().
+	 */
+	private final int[] positions = new int[1024];
+
+	private int cursor;
+
+	/**
+	 * Next value to insert; values below size are already in the list.
+	 */
+	private int next;
+
+	/**
+	 * @return a new empty list of the implementation under test
+	 */
+	protected abstract List<Integer> newList();
+
+	/**
+	 * Sorts list in the NON-DECREASING order.
+	 */
+	protected void sort() {
+		list.sort(null);
+	}
+
+	/**
+	 * Sorts list in the NON-INCREASING order.
+	 */
+	protected void sortReverse() {
+		list.sort(Comparator.reverseOrder());
+	}
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		Random random = new Random(42);
+		shuffled = new Integer[size];
+		for (int i = 0; i < size; i++)
+			shuffled[i] = i;
+		Collections.shuffle(Arrays.asList(shuffled), random);
+		for (int i = 0; i < positions.length; i++)
+			positions[i] = random.nextInt(size);
+		list = newList();
+	}
+
+	@Setup(Level.Iteration)
+	public void refill() {
+		list.clear();
+		list.addAll(Arrays.asList(shuffled));
+		next = size;
+	}
+
+	private int nextPosition() {
+		int pos = positions[cursor];
+		cursor = (cursor + 1) & (positions.length - 1);
+		return pos;
+	}
+
+	/**
+	 * Builds a list of size elements through add(E).
+	 */
+	@Benchmark
+	public List<Integer> append() {
+		List<Integer> l = newList();
+		for (Integer item : shuffled)
+			l.add(item);
+		return l;
+	}
+
+	/**
+	 * add(int, E) at a random position; the last element is removed again to
+	 * keep the size steady.
+	 */
+	@Benchmark
+	public Integer addAtIndex() {
+		list.add(nextPosition(), next++);
+		return list.remove(list.size() - 1);
+	}
+
+	/**
+	 * remove(int) at a random position; an element is appended again to keep the
+	 * size steady.
+	 */
+	@Benchmark
+	public Integer removeAtIndex() {
+		Integer item = list.remove(nextPosition());
+		list.add(list.size(), next++);
+		return item;
+	}
+
+	/**
+	 * remove(int) at a random position followed by add(int, E) of the same
+	 * element at another one. No new values are boxed, so with the GC profiler
+	 * this shows what the positional paths themselves allocate.
+	 */
+	@Benchmark
+	public Integer moveAtIndex() {
+		Integer item = list.remove(nextPosition());
+		list.add(nextPosition() % list.size(), item);
+		return item;
+	}
+
+	@Benchmark
+	public Integer get() {
+		return list.get(nextPosition());
+	}
+
+	/**
+	 * set(int, E) at a random position, writing back an element that is already
+	 * in the list.
+	 */
+	@Benchmark
+	public Integer set() {
+		int pos = nextPosition();
+		return list.set(pos, list.get(pos));
+	}
+
+	/**
+	 * Full pass through the list's iterator.
+	 */
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		for (Integer item : list)
+			sum += item;
+		return sum;
+	}
+
+	/**
+	 * One sort of the shuffled list per iteration.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public List<Integer> sortShuffled() {
+		sort();
+		return list;
+	}
+
+	/**
+	 * One reverse sort of the shuffled list per iteration.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public List<Integer> sortReverseShuffled() {
+		sortReverse();
+		return list;
+	}
+}
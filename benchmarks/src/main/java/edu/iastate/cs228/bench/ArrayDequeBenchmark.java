@@ -0,0 +1,65 @@
+package edu.iastate.cs228.bench;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ArrayDeque baseline for the operations it shares with the lists: appending
+ * and iterating. It has no positional access or sorting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayDequeBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private Integer[] shuffled;
+
+	private ArrayDeque<Integer> deque;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		shuffled = new Integer[size];
+		for (int i = 0; i < size; i++)
+			shuffled[i] = i;
+		Collections.shuffle(Arrays.asList(shuffled), new Random(42));
+		deque = new ArrayDeque<>(Arrays.asList(shuffled));
+	}
+
+	@Benchmark
+	public ArrayDeque<Integer> append() {
+		ArrayDeque<Integer> d = new ArrayDeque<>();
+		for (Integer item : shuffled)
+			d.add(item);
+		return d;
+	}
+
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		for (Integer item : deque)
+			sum += item;
+		return sum;
+	}
+}
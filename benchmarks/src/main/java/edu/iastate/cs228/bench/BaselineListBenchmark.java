@@ -0,0 +1,21 @@
+package edu.iastate.cs228.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * AbstractListBenchmark for the JDK lists StoutList is compared against.
+ */
+public class BaselineListBenchmark extends AbstractListBenchmark {
+
+	@Param({ "ArrayList", "LinkedList" })
+	public String impl;
+
+	@Override
+	protected List<Integer> newList() {
+		return impl.equals("ArrayList") ? new ArrayList<>() : new LinkedList<>();
+	}
+}
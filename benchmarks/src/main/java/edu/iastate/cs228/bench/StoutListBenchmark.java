@@ -0,0 +1,47 @@
+package edu.iastate.cs228.bench;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Param;
+
+import edu.iastate.cs228.NodePool;
+import edu.iastate.cs228.StoutList;
+
+/**
+ * AbstractListBenchmark for StoutList across node sizes, with and without the
+ * uniqueness index. Without the index, append() is quadratic since add(E)
+ * scans for duplicates. Run with -p poolCapacity=64 (for example) to recycle
+ * node arrays through a NodePool; moveAtIndex() with -prof gc shows the effect.
+ */
+public class StoutListBenchmark extends AbstractListBenchmark {
+
+	@Param({ "4", "16", "64", "256" })
+	public int nodeSize;
+
+	@Param({ "false", "true" })
+	public boolean uniqueIndex;
+
+	/**
+	 * Capacity of the node pool, 0 for none.
+	 */
+	@Param({ "0" })
+	public int poolCapacity;
+
+	@Override
+	protected List<Integer> newList() {
+		StoutList<Integer> l = new StoutList<>(nodeSize, uniqueIndex);
+		if (poolCapacity > 0)
+			l.setNodePool(new NodePool(nodeSize, poolCapacity));
+		return l;
+	}
+
+	@Override
+	protected void sort() {
+		((StoutList<Integer>) list).sort();
+	}
+
+	@Override
+	protected void sortReverse() {
+		((StoutList<Integer>) list).sortReverse();
+	}
+}
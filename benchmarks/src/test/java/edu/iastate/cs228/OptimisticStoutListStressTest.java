@@ -0,0 +1,67 @@
+package edu.iastate.cs228;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Races readers of OptimisticStoutList against a writer.
+ */
+class OptimisticStoutListStressTest
+{
+
+	/**
+	 * Once hasNext() has returned true, next() must return an element even if a
+	 * writer shrinks the list in between. The writer keeps removing from the end
+	 * and adding back, so readers often stand at the last element when it goes.
+	 */
+	@Test
+	void nextAfterHasNextSurvivesRemovalFromTheEnd() throws InterruptedException {
+		OptimisticStoutList<Integer> list = new OptimisticStoutList<>(new StoutList<Integer>(8));
+		for (int i = 0; i < 200; i++)
+			list.add(i);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		long end = System.nanoTime() + 2_000_000_000L;
+
+		Thread writer = new Thread(() -> {
+			ThreadLocalRandom r = ThreadLocalRandom.current();
+			int next = 200;
+			while (System.nanoTime() < end && failure.get() == null) {
+				int size = list.size();
+				if (size > 100 && r.nextBoolean())
+					list.remove(size - 1);
+				else
+					list.add(next++);
+			}
+		});
+		Thread[] readers = new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread(() -> {
+				try {
+					while (System.nanoTime() < end && failure.get() == null) {
+						Iterator<Integer> it = list.iterator();
+						while (it.hasNext()) {
+							Thread.yield();
+							if (it.next() == null)
+								throw new AssertionError("null element");
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+
+		writer.start();
+		for (Thread reader : readers)
+			reader.start();
+		writer.join();
+		for (Thread reader : readers)
+			reader.join();
+		assertNull(failure.get());
+	}
+}